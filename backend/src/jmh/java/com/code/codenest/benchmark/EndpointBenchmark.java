@@ -0,0 +1,116 @@
+package com.code.codenest.benchmark;
+
+import com.code.codenest.CodenestApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end GET /api/code/{uuid} and POST /api/code/new over HTTP, through the security
+ * filter chain, against the full application backed by an embedded PostgreSQL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EndpointBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private String authCookie;
+    private String snippetUuid;
+    private byte[] createBody;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+        // Command-line arguments so they win over application.properties
+        context = SpringApplication.run(CodenestApplication.class,
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=",
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.com.code.codenest=WARN",
+                "--logging.level.org.springframework.web=WARN",
+                "--logging.level.org.springframework.security=WARN");
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/api";
+        client = HttpClient.newHttpClient();
+
+        JsonNode user = post("/register", Map.of(
+                "username", "bench", "email", "bench@example.com", "password", "bench-password"), null);
+        authCookie = "uuid=" + user.get("uuid").asText();
+
+        createBody = objectMapper.writeValueAsBytes(Map.of(
+                "title", "Benchmark snippet",
+                "content", "SELECT 1;\n".repeat(100),
+                "tags", List.of("sql", "bench")));
+        snippetUuid = post("/code/new", createBody, authCookie).get("uuid").asText();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        if (context != null) {
+            context.close();
+        }
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Benchmark
+    public String getByIdAsJson() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/code/" + snippetUuid))
+                .header("Cookie", authCookie)
+                .GET()
+                .build();
+        return send(request);
+    }
+
+    @Benchmark
+    public String createSnippet() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/code/new"))
+                .header("Cookie", authCookie)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(createBody))
+                .build();
+        return send(request);
+    }
+
+    private JsonNode post(String path, Object body, String cookie) throws Exception {
+        byte[] json = body instanceof byte[] bytes ? bytes : objectMapper.writeValueAsBytes(body);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(json));
+        if (cookie != null) {
+            builder.header("Cookie", cookie);
+        }
+        return objectMapper.readTree(send(builder.build()));
+    }
+
+    private String send(HttpRequest request) throws Exception {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(request.uri() + " returned " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,95 @@
+package com.code.codenest.benchmark;
+
+import com.code.codenest.dto.SnipResponse;
+import com.code.codenest.dto.UserResponse;
+import com.code.codenest.model.Snip;
+import com.code.codenest.model.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory hot paths behind every snippet read: the expiry check, building the response
+ * DTO and serializing it, plus the password check behind every login.
+ * <p>
+ * Run with {@code ./gradlew jmh}; the gc profiler reports allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnipBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Snip timeLimited;
+    private Snip viewLimited;
+    private Snip unlimited;
+    private User author;
+    private UserResponse authorResponse;
+    private List<String> tags;
+
+    @Setup
+    public void setUp() {
+        timeLimited = snip("Time limited");
+        timeLimited.setTimeLimit(3600);
+        viewLimited = snip("View limited");
+        viewLimited.setViewLimit(100);
+        viewLimited.setViewCount(42L);
+        unlimited = snip("Unlimited");
+
+        author = new User("author-uuid", "author");
+        author.setEmail("author@example.com");
+        author.setPassword(PASSWORD);
+        authorResponse = new UserResponse(author);
+        tags = List.of("java", "spring", "performance");
+    }
+
+    @Benchmark
+    public boolean isAccessibleTimeLimited() {
+        return timeLimited.isAccessible();
+    }
+
+    @Benchmark
+    public boolean isAccessibleViewLimited() {
+        return viewLimited.isAccessible();
+    }
+
+    @Benchmark
+    public boolean isAccessibleUnlimited() {
+        return unlimited.isAccessible();
+    }
+
+    @Benchmark
+    public SnipResponse snipResponse() {
+        return new SnipResponse(timeLimited, authorResponse, tags);
+    }
+
+    @Benchmark
+    public byte[] snipResponseJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(new SnipResponse(timeLimited, authorResponse, tags));
+    }
+
+    @Benchmark
+    public boolean checkPassword() {
+        return author.checkPassword(PASSWORD);
+    }
+
+    private static Snip snip(String title) {
+        Snip snip = new Snip();
+        snip.setTitle(title);
+        snip.setContent("public class Hello {\n    public static void main(String[] args) {\n"
+                + "        System.out.println(\"Hello, world\");\n    }\n}\n".repeat(20));
+        snip.setUserId(1L);
+        snip.setCreatedAt(LocalDateTime.now());
+        return snip;
+    }
+}
@@ -27,10 +27,12 @@ public class CookieAuthenticationFilter extends OncePerRequestFilter {
 
     private static final Logger log = LoggerFactory.getLogger(CookieAuthenticationFilter.class);
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
     @Autowired
-    public CookieAuthenticationFilter(UserRepository userRepository) {
+    public CookieAuthenticationFilter(UserRepository userRepository, PrincipalCache principalCache) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
     }
 
     @Override
@@ -43,7 +45,11 @@ public class CookieAuthenticationFilter extends OncePerRequestFilter {
             String uuid = uuidCookie.get();
             log.trace("Found uuid cookie: {}", uuid); // Use trace for potentially sensitive info
 
-            Optional<User> userOptional = userRepository.findByUuid(uuid);
+            Optional<User> userOptional = principalCache.get(uuid);
+            if (userOptional.isEmpty()) {
+                userOptional = userRepository.findByUuid(uuid);
+                userOptional.ifPresent(principalCache::put);
+            }
 
             if (userOptional.isPresent()) {
                 User user = userOptional.get();
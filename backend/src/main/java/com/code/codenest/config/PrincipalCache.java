@@ -0,0 +1,81 @@
+package com.code.codenest.config;
+
+import com.code.codenest.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded, TTL-evicting cache of authenticated users keyed by the uuid cookie, so
+ * {@link CookieAuthenticationFilter} does not query the users table on every request.
+ * <p>
+ * Cached {@link User} instances are shared between requests and must be treated as
+ * read-only; code that changes a user loads a fresh copy and calls {@link #invalidate}.
+ */
+@Component
+public class PrincipalCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Entry> entries;
+
+    public PrincipalCache(@Value("${codenest.auth.principal-cache.max-entries:10000}") int maxEntries,
+                          @Value("${codenest.auth.principal-cache.ttl:PT5M}") Duration ttl) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        // Access order makes the eldest entry the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > PrincipalCache.this.maxEntries;
+            }
+        };
+    }
+
+    public Optional<User> get(String uuid) {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            Entry entry = entries.get(uuid);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            if (now - entry.loadedAt >= ttlNanos) {
+                entries.remove(uuid);
+                return Optional.empty();
+            }
+            return Optional.of(entry.user);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(User user) {
+        Entry entry = new Entry(user, System.nanoTime());
+        lock.lock();
+        try {
+            entries.put(user.getUuid(), entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(String uuid) {
+        lock.lock();
+        try {
+            entries.remove(uuid);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Entry(User user, long loadedAt) {
+    }
+}
@@ -27,7 +27,11 @@ public class SecurityConfig {
                 .authorizeHttpRequests(authorize -> authorize
                         .requestMatchers(
                                 AntPathRequestMatcher.antMatcher(HttpMethod.GET, "/api/code/latest"),
+                                AntPathRequestMatcher.antMatcher(HttpMethod.GET, "/api/code/search"),
+                                AntPathRequestMatcher.antMatcher(HttpMethod.GET, "/api/tags"),
+                                AntPathRequestMatcher.antMatcher(HttpMethod.GET, "/api/tags/*/snippets"),
                                 AntPathRequestMatcher.antMatcher(HttpMethod.GET, "/api/code/{uuid:[a-fA-F0-9\\-]+}"),
+                                AntPathRequestMatcher.antMatcher(HttpMethod.GET, "/api/code/{uuid:[a-fA-F0-9\\-]+}/raw"),
                                 AntPathRequestMatcher.antMatcher(HttpMethod.POST, "/api/register"),
                                 AntPathRequestMatcher.antMatcher(HttpMethod.POST, "/api/login"),
                                 AntPathRequestMatcher.antMatcher(HttpMethod.GET, "/api/debug/**")
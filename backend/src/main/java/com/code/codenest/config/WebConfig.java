@@ -1,7 +1,9 @@
 package com.code.codenest.config;
 
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -17,4 +19,14 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowCredentials(true)
                 .maxAge(3600);
     }
-}
\ No newline at end of file
+
+    // The tag list is rebuilt per request, but an unchanged one is answered with a 304 instead of
+    // the body. Not for the feed, whose body changes every second while it lists a TIME-limited
+    // snip (ApiController computes its ETag), nor for the streamed lists, which would have to be buffered.
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> tagsEtagFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration = new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registration.addUrlPatterns("/api/tags");
+        return registration;
+    }
+}
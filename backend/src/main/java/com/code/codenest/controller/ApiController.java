@@ -1,23 +1,46 @@
 package com.code.codenest.controller;
 
+import com.code.codenest.config.PrincipalCache;
+import com.code.codenest.dto.FeedCursor;
+import com.code.codenest.dto.SearchCursor;
 import com.code.codenest.dto.SnipCreateRequest;
 import com.code.codenest.dto.SnipResponse;
+import com.code.codenest.dto.SnipSummary;
+import com.code.codenest.dto.SnipSummaryResponse;
 import com.code.codenest.dto.UserResponse;
 import com.code.codenest.exception.SnippetNotFoundException;
 import com.code.codenest.model.*;
 import com.code.codenest.repository.*;
+import com.code.codenest.service.CachedSnip;
+import com.code.codenest.service.ExpiryScheduler;
+import com.code.codenest.service.SegmentBlobStore;
+import com.code.codenest.service.SnipCache;
+import com.code.codenest.service.SnipExpiryService;
+import com.code.codenest.service.SnipHydrator;
+import com.code.codenest.service.SnipListStreamer;
+import com.code.codenest.service.SnipSearchIndex;
+import com.code.codenest.service.SnipExporter;
+import com.code.codenest.service.SnipImporter;
+import com.code.codenest.service.SnipService;
+import com.code.codenest.service.TagDictionary;
+import com.code.codenest.service.ViewCounterBuffer;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ETag;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import com.code.codenest.dto.SnipResponse;
 import com.code.codenest.dto.UserResponse;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -25,6 +48,9 @@ import com.code.codenest.dto.UserUpdateRequest;
 
 import java.util.stream.Collectors;
 import java.util.Collections;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -37,44 +63,85 @@ public class ApiController {
 
     public static final HttpHeaders RESPONSE_HEADERS = new HttpHeaders();
 
+    static final int DEFAULT_FEED_PAGE_SIZE = 10;
+    static final int MAX_FEED_PAGE_SIZE = 50;
+    // Upper bound on how long a client may reuse a snip response without revalidating,
+    // which also bounds how stale its displayed view count gets
+    static final long SNIP_MAX_AGE_SECONDS = 30;
+    static final int MAX_SEARCH_QUERY_LENGTH = 200;
+
     static {
         RESPONSE_HEADERS.setContentType(MediaType.valueOf("application/json; charset=UTF-8"));
     }
 
     private final UserRepository userRepository;
     private final SnipRepository snipRepository;
-    private final TagRepository tagRepository;
     private final SnipTagRepository snipTagRepository;
     private final ViewLogRepository viewLogRepository;
     private final ExpirationLogRepository expirationLogRepository;
+    private final SnipHydrator snipHydrator;
+    private final ViewCounterBuffer viewCounterBuffer;
+    private final PrincipalCache principalCache;
+    private final SnipCache snipCache;
+    private final ExpiryScheduler expiryScheduler;
+    private final SnipListStreamer snipListStreamer;
+    private final SegmentBlobStore segmentBlobStore;
+    private final SnipExpiryService snipExpiryService;
+    private final SnipSearchIndex snipSearchIndex;
+    private final SnipService snipService;
+    private final SnipImporter snipImporter;
+    private final SnipExporter snipExporter;
 
     @Autowired
     private ApiController(
             UserRepository userRepo,
             SnipRepository snipRepo,
-            TagRepository tagRepo,
             SnipTagRepository snipTagRepo,
             ViewLogRepository viewLogRepo,
-            ExpirationLogRepository expirationLogRepo) {
+            ExpirationLogRepository expirationLogRepo,
+            SnipHydrator snipHydrator,
+            ViewCounterBuffer viewCounterBuffer,
+            PrincipalCache principalCache,
+            SnipCache snipCache,
+            ExpiryScheduler expiryScheduler,
+            SnipListStreamer snipListStreamer,
+            SegmentBlobStore segmentBlobStore,
+            SnipExpiryService snipExpiryService,
+            SnipSearchIndex snipSearchIndex,
+            SnipService snipService,
+            SnipImporter snipImporter,
+            SnipExporter snipExporter) {
         this.userRepository = userRepo;
         this.snipRepository = snipRepo;
-        this.tagRepository = tagRepo;
         this.snipTagRepository = snipTagRepo;
         this.viewLogRepository = viewLogRepo;
         this.expirationLogRepository = expirationLogRepo;
+        this.snipHydrator = snipHydrator;
+        this.viewCounterBuffer = viewCounterBuffer;
+        this.principalCache = principalCache;
+        this.snipCache = snipCache;
+        this.expiryScheduler = expiryScheduler;
+        this.snipListStreamer = snipListStreamer;
+        this.segmentBlobStore = segmentBlobStore;
+        this.snipExpiryService = snipExpiryService;
+        this.snipSearchIndex = snipSearchIndex;
+        this.snipService = snipService;
+        this.snipImporter = snipImporter;
+        this.snipExporter = snipExporter;
     }
 
     @PutMapping("/user/profile")
     public ResponseEntity<Map<String, Object>> updateProfile(
             @RequestBody UserUpdateRequest request,
-            @CookieValue(name = "uuid", defaultValue = "") String userUuid) {
+            @AuthenticationPrincipal User principal) {
 
-        if (userUuid.isEmpty()) {
+        if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("success", false, "message", "Authentication required"));
         }
 
-        User user = userRepository.findByUuid(userUuid)
+        // The principal is a shared cached instance; edit a freshly loaded copy instead
+        User user = userRepository.findById(principal.getId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid authentication session."));
 
         boolean updated = false;
@@ -124,6 +191,7 @@ public class ApiController {
 
         if (updated) {
             User savedUser = userRepository.save(user);
+            principalCache.invalidate(savedUser.getUuid());
             logger.info("User {} profile updated successfully.", savedUser.getId());
             // Return updated user data
             return ResponseEntity.ok(Map.of(
@@ -138,113 +206,86 @@ public class ApiController {
     }
 
     @GetMapping("/user/snippets")
-    public ResponseEntity<Map<String, Object>> getUserSnippets(
-            @CookieValue(name = "uuid", defaultValue = "") String userUuid) {
+    public ResponseEntity<?> getUserSnippets(
+            @AuthenticationPrincipal User user) {
 
-        if (userUuid.isEmpty()) {
+        if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("success", false, "message", "Authentication required"));
         }
 
-        User user = userRepository.findByUuid(userUuid)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid authentication session."));
+        // Written row by row as the snips are read; no separate "authors" list as it's always the same user
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snipListStreamer.userSnippets(user));
+    }
 
-        List<Snip> userSnips = snipRepository.findByUserIdOrderByIdDesc(user.getId());
+    // Bulk import from newline-delimited JSON, one snippet per line as accepted by /code/new.
+    // The body is read as it arrives rather than buffered.
+    @PostMapping(value = "/code/import", consumes = {"application/x-ndjson", MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<Map<String, Object>> importSnippets(
+            HttpServletRequest request,
+            @AuthenticationPrincipal User user) throws IOException {
 
-        if (userSnips.isEmpty()) {
-            return ResponseEntity.ok(Map.of("success", true, "snippets", Collections.emptyList()));
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("success", false, "message", "Authentication required"));
         }
 
-        UserResponse authorResponse = new UserResponse(user); // Author is always the current user
-
-        List<SnipResponse> snipResponses = userSnips.stream()
-                .map(snip -> {
-                    // Get tags for this snip
-                    List<String> tags = snipTagRepository.findBySnipId(snip.getId())
-                            .stream()
-                            .map(st -> st.getTag().getName())
-                            .collect(Collectors.toList());
-
-                    boolean isAccessible = snip.isAccessible(); // Calculate beforehand
-
-                    // Create the response object
-                    SnipResponse responseDto = new SnipResponse(snip, authorResponse, tags);
-
-                    // *** ENSURE isAccessible is set (redundant if constructor is reliable) ***
-//                    responseDto.setAccessible(isAccessible); // SnipResponse needs a setter if you use this line
-
-                    return responseDto; // Return the DTO created by the constructor
-                })
-                .collect(Collectors.toList());
-
-
+        SnipImporter.Result result = snipImporter.importNdjson(request.getInputStream(), user);
         Map<String, Object> response = new HashMap<>();
-        response.put("success", true);
-        response.put("snippets", snipResponses);
-        // No need to return separate "authors" list as it's always the same user
-
+        response.put("success", result.failure() == null);
+        response.put("imported", result.imported());
+        response.put("rejected", result.rejected());
+        response.put("errors", result.errors());
+        if (result.failure() != null) {
+            response.put("message", result.failure());
+            return ResponseEntity.badRequest().body(response);
+        }
         return ResponseEntity.ok(response);
     }
 
+    // The user's live snippets with content and tags as newline-delimited JSON, in the
+    // format /code/import reads back
+    @GetMapping("/code/export")
+    public ResponseEntity<?> exportSnippets(@AuthenticationPrincipal User user) {
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("success", false, "message", "Authentication required"));
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.valueOf("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"codenest-snippets.ndjson\"")
+                .cacheControl(CacheControl.noStore())
+                .body(snipExporter.export(user));
+    }
+
     @PostMapping("code/new")
     public ResponseEntity<?> createSnippet(
             @RequestBody SnipCreateRequest request,
-            @CookieValue(name = "uuid", defaultValue = "") String userUuid) {
+            @AuthenticationPrincipal User user) {
 
-        // --- Get User from Cookie ---
-        if (userUuid.isEmpty()) {
+        // --- User resolved by CookieAuthenticationFilter ---
+        if (user == null) {
             logger.warn("Attempt to create snippet without authentication cookie.");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("success", false, "message", "Authentication required to create snippet."));
         }
-
-        User user = userRepository.findByUuid(userUuid)
-                .orElseThrow(() -> {
-                    logger.error("Authenticated user UUID {} not found in database.", userUuid);
-                    return new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid authentication session.");
-                });
         logger.info("Received request to /api/code/new");
         logger.info("Request DTO content: [{}]", request.getContent());
         logger.info("Request Expiration Type: {}, Value: {}", request.getExpirationType(), request.getExpirationValue()); // Log received values
 
-        Snip newSnippet = new Snip();
-        newSnippet.setTitle(request.getTitle());
-        newSnippet.setContent(request.getContent());
-        newSnippet.setUserId(user.getId());
-
-        newSnippet.setExpirationType(request.getExpirationType()); // Set type (can be null)
-        newSnippet.setExpirationValue(request.getExpirationValue()); // Set value (can be 0)
-        logger.info("Setting Snip Entity Expiration Type: {}, Value: {}", newSnippet.getExpirationType(), newSnippet.getExpirationValue());
-        // --- END CORRECTION ---
-
-        Snip savedSnippet = snipRepository.save(newSnippet);
-
-        // Process tags if present
-        if (request.getTags() != null && !request.getTags().isEmpty()) {
-            logger.info("Processing tags: {}", request.getTags());
-            for (String tagName : request.getTags()) {
-                if (tagName == null || tagName.trim().isEmpty()) {
-                    logger.warn("Skipping empty or null tag name.");
-                    continue;
-                }
-                String cleanTagName = tagName.trim();
-                Tag tag = tagRepository.findByName(cleanTagName)
-                        .orElseGet(() -> {
-                            logger.info("Tag '{}' not found, creating new tag.", cleanTagName);
-                            Tag newTag = new Tag();
-                            newTag.setName(cleanTagName);
-                            return tagRepository.save(newTag);
-                        });
-
-                SnipTag snipTag = new SnipTag();
-                snipTag.setSnip(savedSnippet);
-                snipTag.setTag(tag);
-                snipTagRepository.save(snipTag);
-            }
-        } else {
-            logger.info("No tags provided in request.");
+        if (request.getContent() == null) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Content is required"));
         }
 
+        // Snip, blob reference, tags and search document in one transaction
+        Snip savedSnippet = snipService.create(request, user);
+        logger.info("Saved Snip Entity Expiration Type: {}, Value: {}", savedSnippet.getExpirationType(), savedSnippet.getExpirationValue());
+        // Only once committed, so expiry never sees a snip without its tags
+        expiryScheduler.schedule(savedSnippet);
+
         logger.debug("Created snippet via /api/code/new with UUID: {}", savedSnippet.getUuid());
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -325,7 +366,11 @@ public class ApiController {
     }
 
     @PostMapping("/logout")
-    ResponseEntity<Map<String, Boolean>> logout(HttpServletResponse response) {
+    ResponseEntity<Map<String, Boolean>> logout(@AuthenticationPrincipal User user, HttpServletResponse response) {
+        if (user != null) {
+            principalCache.invalidate(user.getUuid());
+        }
+
         Cookie cookie = new Cookie("uuid", null);
         cookie.setMaxAge(0);
         cookie.setPath("/");
@@ -335,132 +380,347 @@ public class ApiController {
     }
 
     @GetMapping("/auth/me")
-    public ResponseEntity<?> getCurrentUser(@CookieValue(name = "uuid", defaultValue = "") String uuid) {
-        logger.debug("Auth check for UUID: {}", uuid);
-
-        if (uuid.isEmpty()) {
-            logger.warn("Auth check failed: No UUID cookie present");
+    public ResponseEntity<?> getCurrentUser(@AuthenticationPrincipal User user) {
+        if (user == null) {
+            logger.warn("Auth check failed: No authenticated user");
             return ResponseEntity.status(401).body(Map.of("message", "Not authenticated"));
         }
 
-        Optional<User> optUser = userRepository.findByUuid(uuid);
-        if (optUser.isPresent()) {
-            User user = optUser.get();
-            logger.debug("Auth check successful for user: {}", user.getUsername());
-            return ResponseEntity.ok(Map.of(
-                    "uuid", user.getUuid(),
-                    "username", user.getUsername(),
-                    "email", user.getEmail()
-            ));
-        }
-
-        logger.warn("Auth check failed: Invalid UUID - {}", uuid);
-        return ResponseEntity.status(401).body(Map.of("message", "Invalid authentication"));
+        logger.debug("Auth check successful for user: {}", user.getUsername());
+        return ResponseEntity.ok(Map.of(
+                "uuid", user.getUuid(),
+                "username", user.getUsername(),
+                "email", user.getEmail()
+        ));
     }
 
     @GetMapping("/code/latest")
-    ResponseEntity<Map<String, Object>> getLatest10AsJson() {
-        List<Snip> snippetList = snipRepository.findLatest10();
-
-        List<UserResponse> authorResponses = new ArrayList<>();
-        List<SnipResponse> snipResponses = new ArrayList<>();
-
-        for (Snip snip : snippetList) {
-            User user = userRepository.findById(snip.getUserId())
-                    .orElse(User.UNKNOWN);
+    ResponseEntity<Map<String, Object>> getLatestAsJson(
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false, defaultValue = "" + DEFAULT_FEED_PAGE_SIZE) int limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_FEED_PAGE_SIZE));
+        // Fetch one extra row to know whether another page exists
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+
+        List<SnipSummary> snippetList;
+        if (before == null || before.isEmpty()) {
+            snippetList = snipRepository.findLatest(LocalDateTime.now(), page);
+        } else {
+            FeedCursor cursor;
+            try {
+                cursor = FeedCursor.decode(before);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+            snippetList = snipRepository.findLatestBefore(cursor.getCreatedAt(), cursor.getId(), LocalDateTime.now(), page);
+        }
 
-            List<String> tags = snipTagRepository.findBySnipId(snip.getId())
-                    .stream()
-                    .map(st -> st.getTag().getName())
-                    .collect(Collectors.toList());
+        String nextCursor = null;
+        if (snippetList.size() > pageSize) {
+            snippetList = snippetList.subList(0, pageSize);
+            SnipSummary last = snippetList.get(pageSize - 1);
+            nextCursor = new FeedCursor(last.getCreatedAt(), last.getId()).encode();
+        }
 
-            UserResponse userResponse = new UserResponse(user);
-            SnipResponse snipResponse = new SnipResponse(snip, userResponse, tags);
+        // Content-free summaries; the full content is only served by GET /api/code/{uuid}
+        List<SnipSummaryResponse> snipResponses = snipHydrator.toSummaryResponses(snippetList);
+        List<UserResponse> authorResponses = snipResponses.stream()
+                .map(SnipSummaryResponse::getAuthor)
+                .collect(Collectors.toList());
 
-            authorResponses.add(userResponse);
-            snipResponses.add(snipResponse);
+        // Revalidated on every use; an unchanged page is answered with a 304 instead of the body
+        String etag = feedETag(snipResponses, nextCursor);
+        if (ifNoneMatch != null && etagMatches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
         }
 
         Map<String, Object> response = new HashMap<>();
         response.put("snippets", snipResponses);
         response.put("authors", authorResponses);
+        response.put("nextCursor", nextCursor);
 
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(response);
+    }
+
+    // Which snips are on the page and their view counts; like snipETag it leaves out
+    // remainingSeconds, which changes every second while a TIME-limited snip is listed. A snip
+    // past its deadline drops out of the page, which changes the ETag.
+    private static String feedETag(List<SnipSummaryResponse> snippets, String nextCursor) {
+        StringBuilder page = new StringBuilder();
+        for (SnipSummaryResponse snippet : snippets) {
+            page.append(snippet.getUuid()).append(':').append(snippet.getViewCount()).append(';');
+        }
+        page.append(nextCursor);
+        return "\"" + DigestUtils.md5DigestAsHex(page.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    @GetMapping("/code/search")
+    ResponseEntity<Map<String, Object>> searchSnippets(
+            @RequestParam String q,
+            @RequestParam(name = "tag", required = false) List<String> tags,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false, defaultValue = "" + DEFAULT_FEED_PAGE_SIZE) int limit) {
+
+        String query = q.trim();
+        if (query.isEmpty() || query.length() > MAX_SEARCH_QUERY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Query must be 1 to " + MAX_SEARCH_QUERY_LENGTH + " characters");
+        }
+        List<String> tagFilter = TagDictionary.normalize(tags);
+        SnipSearchIndex.Hit after = null;
+        if (before != null && !before.isEmpty()) {
+            try {
+                SearchCursor cursor = SearchCursor.decode(before);
+                after = new SnipSearchIndex.Hit(cursor.getId(), cursor.getRank());
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_FEED_PAGE_SIZE));
+        // Fetch one extra hit to know whether another page exists
+        List<SnipSearchIndex.Hit> hits = snipSearchIndex.search(query, tagFilter, after, LocalDateTime.now(), pageSize + 1);
+        String nextCursor = null;
+        if (hits.size() > pageSize) {
+            hits = hits.subList(0, pageSize);
+            SnipSearchIndex.Hit last = hits.get(pageSize - 1);
+            nextCursor = new SearchCursor(last.rank(), last.id()).encode();
+        }
+
+        // Summaries come back unordered; put them in rank order
+        Map<Long, SnipSummary> summaries = snipRepository.findSummariesByIdIn(
+                        hits.stream().map(SnipSearchIndex.Hit::id).toList()).stream()
+                .collect(Collectors.toMap(SnipSummary::getId, summary -> summary));
+        List<SnipSummary> ranked = hits.stream()
+                .map(hit -> summaries.get(hit.id()))
+                .filter(Objects::nonNull)
+                .toList();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("snippets", snipHydrator.toSummaryResponses(ranked));
+        response.put("nextCursor", nextCursor);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(response);
     }
 
     @GetMapping("/code/{uuid}")
     ResponseEntity<Map<String, Object>> getByIdAsJson(
             @PathVariable String uuid,
             @RequestParam(required = false, defaultValue = "false") boolean skipIncrement,
-            @CookieValue(name = "uuid", required = false) String userUuid) {
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @AuthenticationPrincipal User viewer) {
 
         logger.debug("Get snippet by UUID: {}, skipIncrement: {}", uuid, skipIncrement);
 
-        var optionalSnippet = snipRepository.findByUuid(uuid);
-
-        if (optionalSnippet.isPresent()) {
-            var snip = optionalSnippet.get();
-
-            if (snip.isAccessible()) {
-                // Only increment view count if we're not skipping
-                if (!skipIncrement) {
-                    snip.increaseViewCount();
-                    snip = snipRepository.save(snip);
-                    logger.debug("Incremented view count for snippet: {}, new count: {}",
-                            uuid, snip.getViewCount());
-
-                    // Create view log if user is authenticated
-                    if (userUuid != null && !userUuid.isEmpty()) {
-                        User viewer = userRepository.findByUuid(userUuid).orElse(null);
-                        if (viewer != null) {
-                            ViewLog viewLog = new ViewLog();
-                            viewLog.setSnip(snip);
-                            viewLog.setViewerId(viewer.getId());
-                            viewLogRepository.save(viewLog);
-                        }
-                    }
-
-                    // Check if snippet expired due to views
-                    if ("VIEWS".equals(snip.getExpirationType()) &&
-                            snip.getViewCount() >= snip.getExpirationValue()) {
-                        ExpirationLog expLog = new ExpirationLog();
-                        expLog.setSnipId(snip.getId());
-                        expLog.setExpirationReason("VIEWS");
-                        expirationLogRepository.save(expLog);
-                    }
-                } else {
-                    logger.debug("Skipped incrementing view count for snippet: {}", uuid);
-                }
+        // A counted view always changes the ETag, so only reads that skip counting can be 304
+        if (skipIncrement && ifNoneMatch != null) {
+            ResponseEntity<Map<String, Object>> notModified = notModified(uuid, ifNoneMatch);
+            if (notModified != null) {
+                return notModified;
+            }
+        }
+
+        CachedSnip cached = snipCache.get(uuid);
+        if (cached == null) {
+            var optionalSnippet = snipRepository.findWithBlobByUuid(uuid);
+            if (optionalSnippet.isEmpty()) {
+                logger.debug("Snippet not found: {}", uuid);
+                return ResponseEntity.status(404).body(Map.of("message", "No such code snippet"));
+            }
+            Snip loaded = optionalSnippet.get();
+            if (!loaded.isAccessible()) {
+                logger.debug("Snippet not accessible: {}", uuid);
+                return expiredResponse();
+            }
+            // Content kept in a segment file is only read for JSON; /raw streams it from the mapping
+            if (loaded.getBlob() != null && loaded.getBlob().isInSegment()) {
+                loaded.setContent(segmentBlobStore.readString(SegmentBlobStore.Pointer.of(loaded.getBlob())));
+            }
+            // Views still waiting in the buffer are part of the count
+            if (!loaded.isViewLimited()) {
+                loaded.setViewCount(loaded.getViewCount() + viewCounterBuffer.pendingViews(loaded.getId()));
+            }
 
-                User author = userRepository.findById(snip.getUserId())
-                        .orElse(User.UNKNOWN);
+            User author = userRepository.findById(loaded.getUserId())
+                    .orElse(User.UNKNOWN);
+            List<String> tags = snipHydrator.loadTags(List.of(loaded.getId()))
+                    .getOrDefault(loaded.getId(), Collections.emptyList());
 
-                // Get tags for this snip
-                List<String> tags = snipTagRepository.findBySnipId(snip.getId())
-                        .stream()
-                        .map(st -> st.getTag().getName())
-                        .collect(Collectors.toList());
+            cached = new CachedSnip(loaded, new UserResponse(author), tags);
+            snipCache.put(cached);
+        }
 
-                UserResponse authorResponse = new UserResponse(author);
-                SnipResponse snipResponse = new SnipResponse(snip, authorResponse, tags);
+        Snip snip = cached.getSnip(); // Shared through the cache, treat as read-only
+        long viewCount = cached.getViewCount();
 
-                Map<String, Object> response = new HashMap<>();
-                response.put("snippet", snipResponse);
-                response.put("author", authorResponse);
-                response.put("tags", tags);
+        // Only increment view count if we're not skipping
+        if (!skipIncrement) {
+            Long viewerId = viewer != null ? viewer.getId() : null;
 
-                return ResponseEntity.ok(response);
+            if (snip.isViewLimited()) {
+                // The view limit is enforced by the database: only a consumed view may be served
+                Optional<Long> consumed = snipRepository.consumeView(uuid);
+                if (consumed.isEmpty()) {
+                    logger.debug("View limit reached for snippet: {}", uuid);
+                    snipCache.evict(uuid);
+                    return expiredResponse();
+                }
+                viewCount = consumed.get();
+                cached.observeViewCount(viewCount);
+                viewCounterBuffer.recordViewLog(snip.getId(), viewerId);
+
+                // Exactly one reader consumes the last view, so the expiry is logged once;
+                // the content is already in memory for this response
+                if (consumed.get() >= snip.getExpirationValue()) {
+                    snipExpiryService.expireByViews(snip.getId(), LocalDateTime.now());
+                }
             } else {
-                logger.debug("Snippet not accessible: {}", uuid);
-                return ResponseEntity.status(403).body(Map.of(
-                        "message", "The code snippet has expired.",
-                        "expired", true
-                ));
+                viewCounterBuffer.recordView(snip.getId(), viewerId);
+                viewCount = cached.countView();
+            }
+            logger.debug("Counted view for snippet: {}, new count: {}", uuid, viewCount);
+        } else {
+            logger.debug("Skipped incrementing view count for snippet: {}", uuid);
+        }
+
+        SnipResponse snipResponse = new SnipResponse(snip, viewCount, cached.getAuthor(), cached.getTags());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("snippet", snipResponse);
+        response.put("author", cached.getAuthor());
+        response.put("tags", cached.getTags());
+
+        return ResponseEntity.ok()
+                .eTag(snipETag(uuid, viewCount))
+                .cacheControl(snipCacheControl(snip, skipIncrement, System.currentTimeMillis()))
+                .body(response);
+    }
+
+    /**
+     * 304 for a revalidation whose ETag still matches, decided from the cached entry or the
+     * snip row alone so the content is not loaded; null when the full response is needed.
+     */
+    private ResponseEntity<Map<String, Object>> notModified(String uuid, String ifNoneMatch) {
+        Snip snip;
+        long viewCount;
+        CachedSnip cached = snipCache.get(uuid);
+        if (cached != null) {
+            snip = cached.getSnip();
+            viewCount = cached.getViewCount();
+        } else {
+            // Without the blob; findByUuid leaves it unloaded
+            Optional<Snip> optionalSnippet = snipRepository.findByUuid(uuid);
+            if (optionalSnippet.isEmpty()) {
+                return null;
+            }
+            snip = optionalSnippet.get();
+            viewCount = snip.getViewCount();
+            if (!snip.isViewLimited()) {
+                viewCount += viewCounterBuffer.pendingViews(snip.getId());
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        if (!snip.isAccessibleAt(now, viewCount)) {
+            return null;
+        }
+        String etag = snipETag(uuid, viewCount);
+        if (!etagMatches(ifNoneMatch, etag)) {
+            return null;
+        }
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(snipCacheControl(snip, true, now))
+                .build();
+    }
+
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        ETag current = ETag.create(etag);
+        return ETag.parse(ifNoneMatch).stream()
+                .anyMatch(candidate -> candidate.isWildcard() || candidate.compare(current, false));
+    }
+
+    // The content never changes after creation; the view count is the only part that does
+    private static String snipETag(String uuid, long viewCount) {
+        return "\"" + uuid + "-" + viewCount + "\"";
+    }
+
+    private static CacheControl snipCacheControl(Snip snip, boolean skipIncrement, long nowMillis) {
+        if (!skipIncrement) {
+            // Every such request is a view and has to reach the server
+            return CacheControl.noStore();
+        }
+        long maxAge = SNIP_MAX_AGE_SECONDS;
+        if (snip.isViewLimited()) {
+            // Whether views remain is only known to the server
+            maxAge = 0;
+        } else if (snip.getDeadlineMillis() != SnipExpiry.NO_LIMIT) {
+            // Never fresh past the TIME deadline
+            maxAge = Math.min(maxAge, snip.getRemainingSecondsAt(nowMillis));
+        }
+        return CacheControl.maxAge(Duration.ofSeconds(maxAge)).cachePrivate().mustRevalidate();
+    }
+
+    @GetMapping("/code/{uuid}/raw")
+    ResponseEntity<?> getRawContent(
+            @PathVariable String uuid,
+            @AuthenticationPrincipal User viewer) {
+
+        var optionalSnippet = snipRepository.findWithBlobByUuid(uuid);
+        if (optionalSnippet.isEmpty()) {
+            return ResponseEntity.status(404).body(Map.of("message", "No such code snippet"));
+        }
+        Snip snip = optionalSnippet.get();
+        SnipBlob blob = snip.getBlob();
+        if (!snip.isAccessible() || blob == null) {
+            return expiredResponse();
+        }
+
+        // Counted like a view of GET /api/code/{uuid}
+        Long viewerId = viewer != null ? viewer.getId() : null;
+        if (snip.isViewLimited()) {
+            Optional<Long> consumed = snipRepository.consumeView(uuid);
+            if (consumed.isEmpty()) {
+                snipCache.evict(uuid);
+                return expiredResponse();
+            }
+            viewCounterBuffer.recordViewLog(snip.getId(), viewerId);
+            if (consumed.get() >= snip.getExpirationValue()) {
+                // A released segment record stays readable until compaction
+                snipExpiryService.expireByViews(snip.getId(), LocalDateTime.now());
             }
+        } else {
+            viewCounterBuffer.recordView(snip.getId(), viewerId);
         }
 
-        logger.debug("Snippet not found: {}", uuid);
-        return ResponseEntity.status(404).body(Map.of("message", "No such code snippet"));
+        StreamingResponseBody body;
+        if (blob.isInSegment()) {
+            SegmentBlobStore.Pointer pointer = SegmentBlobStore.Pointer.of(blob);
+            body = out -> segmentBlobStore.transferTo(pointer, out);
+        } else {
+            byte[] content = snip.getContent().getBytes(StandardCharsets.UTF_8);
+            body = out -> out.write(content);
+        }
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .cacheControl(CacheControl.noStore())
+                .body(body);
+    }
+
+    private static ResponseEntity<Map<String, Object>> expiredResponse() {
+        return ResponseEntity.status(403).body(Map.of(
+                "message", "The code snippet has expired.",
+                "expired", true
+        ));
     }
 
     @GetMapping("/debug/cookies")
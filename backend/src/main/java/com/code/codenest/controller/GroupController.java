@@ -9,12 +9,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import com.code.codenest.model.GroupSnip;
 import com.code.codenest.model.Snip;
 import com.code.codenest.dto.SnipResponse;
+import com.code.codenest.service.SnipListStreamer;
 
 
 import java.time.LocalDateTime;
@@ -32,6 +35,7 @@ public class GroupController {
     private final GroupSnipRepository groupSnipRepository;
     private final SnipRepository snipRepository;
     private final SnipTagRepository snipTagRepository; // Added this
+    private final SnipListStreamer snipListStreamer;
 
     @Autowired
     public GroupController(
@@ -40,28 +44,27 @@ public class GroupController {
             UserRepository userRepository,
             GroupSnipRepository groupSnipRepository,
             SnipRepository snipRepository,
-            SnipTagRepository snipTagRepository) { // Added this
+            SnipTagRepository snipTagRepository, // Added this
+            SnipListStreamer snipListStreamer) {
         this.groupRepository = groupRepository;
         this.groupMemberRepository = groupMemberRepository;
         this.userRepository = userRepository;
         this.groupSnipRepository = groupSnipRepository;
         this.snipRepository = snipRepository;
         this.snipTagRepository = snipTagRepository; // Added this
+        this.snipListStreamer = snipListStreamer;
     }
 
     @PostMapping
     public ResponseEntity<Map<String, Object>> createGroup(
             @RequestBody GroupCreateRequest request,
-            @CookieValue(name = "uuid", defaultValue = "") String creatorUuid) {
+            @AuthenticationPrincipal User creator) {
 
-        if (creatorUuid.isEmpty()) {
+        if (creator == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("success", false, "message", "Authentication required"));
         }
 
-        User creator = userRepository.findByUuid(creatorUuid)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid authentication"));
-
         Group group = new Group();
         group.setName(request.getName());
         group.setCreatorId(creator.getId());
@@ -85,16 +88,13 @@ public class GroupController {
     public ResponseEntity<Map<String, Object>> addMember(
             @PathVariable Long groupId,
             @RequestBody Map<String, String> payload,
-            @CookieValue(name = "uuid", defaultValue = "") String adminUuid) {
+            @AuthenticationPrincipal User admin) {
 
-        if (adminUuid.isEmpty()) {
+        if (admin == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("success", false, "message", "Authentication required"));
         }
 
-        User admin = userRepository.findByUuid(adminUuid)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid authentication"));
-
         Group group = groupRepository.findById(groupId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Group not found"));
 
@@ -146,16 +146,13 @@ public class GroupController {
     public ResponseEntity<Map<String, Object>> removeMember(
             @PathVariable Long groupId,
             @PathVariable Long userId,
-            @CookieValue(name = "uuid", defaultValue = "") String adminUuid) {
+            @AuthenticationPrincipal User admin) {
 
-        if (adminUuid.isEmpty()) {
+        if (admin == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("success", false, "message", "Authentication required"));
         }
 
-        User admin = userRepository.findByUuid(adminUuid)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid authentication"));
-
         Group group = groupRepository.findById(groupId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Group not found"));
 
@@ -190,16 +187,13 @@ public class GroupController {
     @GetMapping("/{groupId}/members")
     public ResponseEntity<Map<String, Object>> getMembers(
             @PathVariable Long groupId,
-            @CookieValue(name = "uuid", defaultValue = "") String userUuid) {
+            @AuthenticationPrincipal User user) {
 
-        if (userUuid.isEmpty()) {
+        if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("success", false, "message", "Authentication required"));
         }
 
-        User user = userRepository.findByUuid(userUuid)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid authentication"));
-
         Group group = groupRepository.findById(groupId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Group not found"));
 
@@ -240,16 +234,13 @@ public class GroupController {
 
     @GetMapping("/my")
     public ResponseEntity<Map<String, Object>> getMyGroups(
-            @CookieValue(name = "uuid", defaultValue = "") String userUuid) {
+            @AuthenticationPrincipal User user) {
 
-        if (userUuid.isEmpty()) {
+        if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("success", false, "message", "Authentication required"));
         }
 
-        User user = userRepository.findByUuid(userUuid)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid authentication"));
-
         // Get groups created by user
         List<Map<String, Object>> createdGroups = groupRepository.findByCreatorId(user.getId())
                 .stream()
@@ -299,18 +290,15 @@ public class GroupController {
     }
 
     @GetMapping("/{groupId}/snippets")
-    public ResponseEntity<Map<String, Object>> getGroupSnippets(
+    public ResponseEntity<?> getGroupSnippets(
             @PathVariable Long groupId,
-            @CookieValue(name = "uuid", defaultValue = "") String userUuid) {
+            @AuthenticationPrincipal User user) {
 
-        if (userUuid.isEmpty()) {
+        if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("success", false, "message", "Authentication required"));
         }
 
-        User user = userRepository.findByUuid(userUuid)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid authentication"));
-
         Group group = groupRepository.findById(groupId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Group not found"));
 
@@ -323,74 +311,23 @@ public class GroupController {
                     .body(Map.of("success", false, "message", "You are not a member of this group"));
         }
 
-        // Get all shared snippets for this group
-        List<GroupSnip> groupSnips = groupSnipRepository.findByGroupIdWithSnips(groupId);
-
-
-
-        List<Map<String, Object>> accessibleSnippetResponses = new ArrayList<>();
-
-        for (GroupSnip groupSnip : groupSnips) {
-            Snip snip = groupSnip.getSnip();
-
-            if (snip.isAccessible()) {
-                User author = userRepository.findById(snip.getUserId()).orElse(User.UNKNOWN);
-                User sharer = userRepository.findById(groupSnip.getSharedById()).orElse(User.UNKNOWN);
-
-                List<String> tags = snipTagRepository.findBySnipId(snip.getId())
-                        .stream()
-                        .map(st -> st.getTag().getName())
-                        .collect(Collectors.toList());
-
-                Map<String, Object> snippetResponse = new HashMap<>();
-                snippetResponse.put("id", snip.getId());
-                snippetResponse.put("uuid", snip.getUuid());
-                snippetResponse.put("title", snip.getTitle() != null ? snip.getTitle() : "Untitled Snippet");
-                snippetResponse.put("createdAt", snip.getCreatedAt().toString());
-
-                Map<String, Object> authorMap = new HashMap<>();
-                authorMap.put("id", author.getId());
-                authorMap.put("uuid", author.getUuid());
-                authorMap.put("username", author.getUsername());
-
-                Map<String, Object> sharerMap = new HashMap<>();
-                sharerMap.put("id", sharer.getId());
-                sharerMap.put("uuid", sharer.getUuid());
-                sharerMap.put("username", sharer.getUsername());
-
-                snippetResponse.put("author", authorMap);
-                snippetResponse.put("sharedBy", sharerMap);
-                snippetResponse.put("sharedAt", groupSnip.getSharedAt().toString());
-                snippetResponse.put("tags", tags);
-
-                accessibleSnippetResponses.add(snippetResponse); // Add to the filtered list
-            } else {
-                // Optional: Log that an expired snippet was skipped
-                logger.debug("Skipping expired/inaccessible snippet UUID {} (ID {}) shared in group {}", snip.getUuid(), snip.getId(), groupId);
-            }
-            // *** END FILTERING STEP ***
-        }
-
-        return ResponseEntity.ok(Map.of(
-                "success", true,
-                "snippets", accessibleSnippetResponses // Return the filtered list
-        ));
+        // Shared snippets that have not expired, written row by row as they are read
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snipListStreamer.groupSnippets(groupId));
     }
 
     @PostMapping("/{groupId}/snippets")
     public ResponseEntity<Map<String, Object>> shareSnippet(
             @PathVariable Long groupId,
             @RequestBody Map<String, Object> payload, // Keep receiving a generic map
-            @CookieValue(name = "uuid", defaultValue = "") String userUuid) {
+            @AuthenticationPrincipal User user) {
 
-        if (userUuid.isEmpty()) {
+        if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("success", false, "message", "Authentication required"));
         }
 
-        User user = userRepository.findByUuid(userUuid)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid authentication"));
-
         Group group = groupRepository.findById(groupId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Group not found"));
 
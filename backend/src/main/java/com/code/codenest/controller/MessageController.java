@@ -1,8 +1,9 @@
 package com.code.codenest.controller;
 
+import com.code.codenest.dto.FeedCursor;
 import com.code.codenest.dto.MessageCreateRequest;
+import com.code.codenest.dto.SnipSummary;
 import com.code.codenest.model.Message;
-import com.code.codenest.model.Snip;
 import com.code.codenest.model.User;
 import com.code.codenest.repository.MessageRepository;
 import com.code.codenest.repository.SnipRepository;
@@ -10,12 +11,14 @@ import com.code.codenest.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -24,6 +27,9 @@ import java.util.stream.Collectors;
 public class MessageController {
     private static final Logger logger = LoggerFactory.getLogger(MessageController.class);
 
+    static final int DEFAULT_MESSAGE_PAGE_SIZE = 50;
+    static final int MAX_MESSAGE_PAGE_SIZE = 100;
+
     private final MessageRepository messageRepository;
     private final UserRepository userRepository;
     private final SnipRepository snipRepository;
@@ -38,15 +44,13 @@ public class MessageController {
     @PostMapping
     public ResponseEntity<Map<String, Object>> createMessage(
             @RequestBody MessageCreateRequest request,
-            @CookieValue(name = "uuid", defaultValue = "") String senderUuid) {
+            @AuthenticationPrincipal User sender) {
 
-        if (senderUuid.isEmpty()) {
+        if (sender == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("success", false, "message", "Authentication required"));
         }
 
-        User sender = userRepository.findByUuid(senderUuid)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid authentication"));
         User receiver = null;
 
         if (request.getReceiverId() != null) {
@@ -93,28 +97,34 @@ public class MessageController {
         return ResponseEntity.ok(Map.of("success", true, "messageId", saved.getId()));
     }
 
+    // Newest first; pass the returned nextCursor as before to load older messages
     @GetMapping("/inbox")
     public ResponseEntity<Map<String, Object>> getInboxMessages(
-            @CookieValue(name = "uuid", defaultValue = "") String userUuid) {
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false, defaultValue = "" + DEFAULT_MESSAGE_PAGE_SIZE) int limit,
+            @AuthenticationPrincipal User user) {
 
-        if (userUuid.isEmpty()) {
+        if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("success", false, "message", "Authentication required"));
         }
 
-        User user = userRepository.findByUuid(userUuid)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid authentication"));
-
-        List<Map<String, Object>> messages = messageRepository.findByReceiverIdOrderBySentAtDesc(user.getId())
-                .stream()
+        int pageSize = pageSize(limit);
+        FeedCursor cursor = decodeCursor(before);
+        // Fetch one extra row to know whether another page exists
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        List<Message> page = cursor == null
+                ? messageRepository.findInbox(user.getId(), pageable)
+                : messageRepository.findInboxBefore(user.getId(), cursor.getCreatedAt(), cursor.getId(), pageable);
+        String nextCursor = nextCursor(page, pageSize);
+        page = page.subList(0, Math.min(page.size(), pageSize));
+
+        // Senders and attached snips are loaded once per page, not once per message
+        Map<Long, User> senders = usersById(page.stream().map(Message::getSenderId).toList());
+        Map<Long, String> snipUuids = snipUuidsById(page);
+        List<Map<String, Object>> messages = page.stream()
                 .map(message -> {
-                    User sender = userRepository.findById(message.getSenderId()).orElse(User.UNKNOWN);
-                    String snipUuid = null;
-                    if (message.getSnipId() != null) {
-                        snipUuid = snipRepository.findById(message.getSnipId()) // Find by numeric ID
-                                .map(Snip::getUuid)            // Map to UUID
-                                .orElse(null);                 // Or null if snippet deleted
-                    }
+                    User sender = senders.getOrDefault(message.getSenderId(), User.UNKNOWN);
 
                     Map<String, Object> messageMap = new HashMap<>();
                     messageMap.put("id", message.getId());
@@ -123,37 +133,45 @@ public class MessageController {
                     messageMap.put("content", message.getContent());
                     messageMap.put("sentAt", message.getSentAt());
                     messageMap.put("snipId", message.getSnipId());
-                    messageMap.put("snipUuid", snipUuid);
+                    messageMap.put("snipUuid", snipUuids.get(message.getSnipId())); // Null if snippet deleted
 
                     return messageMap;
                 })
                 .collect(Collectors.toList());
 
-        return ResponseEntity.ok(Map.of("success", true, "messages", messages));
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("messages", messages);
+        response.put("nextCursor", nextCursor);
+        return ResponseEntity.ok(response);
     }
 
+    // Newest first; pass the returned nextCursor as before to load older messages
     @GetMapping("/sent")
     public ResponseEntity<Map<String, Object>> getSentMessages(
-            @CookieValue(name = "uuid", defaultValue = "") String userUuid) {
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false, defaultValue = "" + DEFAULT_MESSAGE_PAGE_SIZE) int limit,
+            @AuthenticationPrincipal User user) {
 
-        if (userUuid.isEmpty()) {
+        if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("success", false, "message", "Authentication required"));
         }
 
-        User user = userRepository.findByUuid(userUuid)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid authentication"));
-
-        List<Map<String, Object>> messages = messageRepository.findBySenderIdOrderBySentAtDesc(user.getId())
-                .stream()
+        int pageSize = pageSize(limit);
+        FeedCursor cursor = decodeCursor(before);
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        List<Message> page = cursor == null
+                ? messageRepository.findSent(user.getId(), pageable)
+                : messageRepository.findSentBefore(user.getId(), cursor.getCreatedAt(), cursor.getId(), pageable);
+        String nextCursor = nextCursor(page, pageSize);
+        page = page.subList(0, Math.min(page.size(), pageSize));
+
+        Map<Long, User> receivers = usersById(page.stream().map(Message::getReceiverId).toList());
+        Map<Long, String> snipUuids = snipUuidsById(page);
+        List<Map<String, Object>> messages = page.stream()
                 .map(message -> {
-                    User receiver = userRepository.findById(message.getReceiverId()).orElse(User.UNKNOWN);
-                    String snipUuid = null;
-                    if (message.getSnipId() != null) {
-                        snipUuid = snipRepository.findById(message.getSnipId())
-                                .map(Snip::getUuid)
-                                .orElse(null);
-                    }
+                    User receiver = receivers.getOrDefault(message.getReceiverId(), User.UNKNOWN);
 
                     Map<String, Object> messageMap = new HashMap<>();
                     messageMap.put("id", message.getId());
@@ -162,43 +180,50 @@ public class MessageController {
                     messageMap.put("content", message.getContent());
                     messageMap.put("sentAt", message.getSentAt());
                     messageMap.put("snipId", message.getSnipId());
-                    messageMap.put("snipUuid", snipUuid);
+                    messageMap.put("snipUuid", snipUuids.get(message.getSnipId()));
 
                     return messageMap;
                 })
                 .collect(Collectors.toList());
 
-        return ResponseEntity.ok(Map.of("success", true, "messages", messages));
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("messages", messages);
+        response.put("nextCursor", nextCursor);
+        return ResponseEntity.ok(response);
     }
 
+    // The latest page comes first, in chronological order; pass the returned nextCursor as
+    // before to load the page of earlier messages
     @GetMapping("/conversation/{otherUserId}")
     public ResponseEntity<Map<String, Object>> getConversation(
             @PathVariable Long otherUserId,
-            @CookieValue(name = "uuid", defaultValue = "") String userUuid) {
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false, defaultValue = "" + DEFAULT_MESSAGE_PAGE_SIZE) int limit,
+            @AuthenticationPrincipal User user) {
 
-        if (userUuid.isEmpty()) {
+        if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("success", false, "message", "Authentication required"));
         }
-
-        User user = userRepository.findByUuid(userUuid)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid authentication"));
         User otherUser = userRepository.findById(otherUserId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
 
-        // Get messages involving these two users
-        List<Message> conversationMessages = messageRepository.findConversation(user.getId(), otherUserId);
-
-        // Combine and sort by sent time
-        List<Map<String, Object>> conversation = conversationMessages.stream()
+        int pageSize = pageSize(limit);
+        FeedCursor cursor = decodeCursor(before);
+        // Get messages involving these two users, newest first
+        List<Message> page = cursor == null
+                ? messageRepository.findConversation(user.getId(), otherUserId, pageSize + 1)
+                : messageRepository.findConversationBefore(user.getId(), otherUserId,
+                        cursor.getCreatedAt(), cursor.getId(), pageSize + 1);
+        String nextCursor = nextCursor(page, pageSize);
+        page = new ArrayList<>(page.subList(0, Math.min(page.size(), pageSize)));
+        // Displayed oldest to newest
+        Collections.reverse(page);
+
+        Map<Long, String> snipUuids = snipUuidsById(page);
+        List<Map<String, Object>> conversation = page.stream()
                 .map(message -> {
-                    String snipUuid = null;
-                    if (message.getSnipId() != null) {
-                        snipUuid = snipRepository.findById(message.getSnipId())
-                                .map(Snip::getUuid)
-                                .orElse(null);
-                    }
-
                     Map<String, Object> messageMap = new HashMap<>();
                     messageMap.put("id", message.getId());
                     messageMap.put("senderId", message.getSenderId());
@@ -207,17 +232,58 @@ public class MessageController {
                     messageMap.put("sentAt", message.getSentAt());
                     messageMap.put("direction", message.getSenderId().equals(user.getId()) ? "sent" : "received");
                     messageMap.put("snipId", message.getSnipId());
-                    messageMap.put("snipUuid", snipUuid); // *** Add snipUuid to response ***
+                    messageMap.put("snipUuid", snipUuids.get(message.getSnipId()));
 
                     return messageMap;
                 })
-                .sorted(Comparator.comparing(m -> (LocalDateTime) m.get("sentAt")))
                 .collect(Collectors.toList());
 
-        return ResponseEntity.ok(Map.of(
-                "success", true,
-                "otherUser", Map.of("id", otherUser.getId(), "username", otherUser.getUsername(), "uuid", otherUser.getUuid()),
-                "messages", conversation
-        ));
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("otherUser", Map.of("id", otherUser.getId(), "username", otherUser.getUsername(), "uuid", otherUser.getUuid()));
+        response.put("messages", conversation);
+        response.put("nextCursor", nextCursor);
+        return ResponseEntity.ok(response);
+    }
+
+    private static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_MESSAGE_PAGE_SIZE));
+    }
+
+    private static FeedCursor decodeCursor(String before) {
+        if (before == null || before.isEmpty()) {
+            return null;
+        }
+        try {
+            return FeedCursor.decode(before);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    // Cursor of the last message on the page, or null when the extra row was not found
+    private static String nextCursor(List<Message> rows, int pageSize) {
+        if (rows.size() <= pageSize) {
+            return null;
+        }
+        Message last = rows.get(pageSize - 1);
+        return new FeedCursor(last.getSentAt(), last.getId()).encode();
+    }
+
+    private Map<Long, User> usersById(Collection<Long> ids) {
+        return userRepository.findAllById(new HashSet<>(ids)).stream()
+                .collect(Collectors.toMap(User::getId, u -> u));
+    }
+
+    private Map<Long, String> snipUuidsById(List<Message> messages) {
+        Set<Long> ids = messages.stream()
+                .map(Message::getSnipId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return snipRepository.findSummariesByIdIn(ids).stream()
+                .collect(Collectors.toMap(SnipSummary::getId, SnipSummary::getUuid));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,104 @@
+package com.code.codenest.controller;
+
+import com.code.codenest.dto.FeedCursor;
+import com.code.codenest.dto.SnipSummary;
+import com.code.codenest.repository.SnipRepository;
+import com.code.codenest.repository.TagRepository;
+import com.code.codenest.service.SnipHydrator;
+import com.code.codenest.service.TagDictionary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/tags")
+public class TagController {
+
+    static final int DEFAULT_TAG_LIMIT = 50;
+    static final int MAX_TAG_LIMIT = 200;
+
+    private final TagRepository tagRepository;
+    private final SnipRepository snipRepository;
+    private final SnipHydrator snipHydrator;
+    private final TagDictionary tagDictionary;
+
+    @Autowired
+    public TagController(
+            TagRepository tagRepository,
+            SnipRepository snipRepository,
+            SnipHydrator snipHydrator,
+            TagDictionary tagDictionary) {
+        this.tagRepository = tagRepository;
+        this.snipRepository = snipRepository;
+        this.snipHydrator = snipHydrator;
+        this.tagDictionary = tagDictionary;
+    }
+
+    // Most used tags with their number of live snips, for tag clouds
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getPopularTags(
+            @RequestParam(required = false, defaultValue = "" + DEFAULT_TAG_LIMIT) int limit) {
+
+        List<Map<String, Object>> tags = tagRepository.findMostUsed(Math.max(1, Math.min(limit, MAX_TAG_LIMIT))).stream()
+                .map(tag -> Map.<String, Object>of("name", tag.getName(), "count", tag.getCount()))
+                .toList();
+
+        // Revalidated on every use; WebConfig's ETag filter answers 304 when the list is unchanged
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(Map.of("tags", tags));
+    }
+
+    // Live snips under a tag, newest first; pass the returned nextCursor as before
+    @GetMapping("/{name}/snippets")
+    public ResponseEntity<Map<String, Object>> getSnippetsByTag(
+            @PathVariable String name,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false, defaultValue = "" + ApiController.DEFAULT_FEED_PAGE_SIZE) int limit) {
+
+        Long tagId = tagDictionary.find(name.trim())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Tag not found"));
+
+        int pageSize = Math.max(1, Math.min(limit, ApiController.MAX_FEED_PAGE_SIZE));
+        // Fetch one extra row to know whether another page exists
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+
+        List<SnipSummary> snippetList;
+        if (before == null || before.isEmpty()) {
+            snippetList = snipRepository.findLiveByTag(tagId, LocalDateTime.now(), page);
+        } else {
+            FeedCursor cursor;
+            try {
+                cursor = FeedCursor.decode(before);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+            snippetList = snipRepository.findLiveByTagBefore(tagId, cursor.getCreatedAt(), cursor.getId(),
+                    LocalDateTime.now(), page);
+        }
+
+        String nextCursor = null;
+        if (snippetList.size() > pageSize) {
+            snippetList = snippetList.subList(0, pageSize);
+            SnipSummary last = snippetList.get(pageSize - 1);
+            nextCursor = new FeedCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("tag", name.trim());
+        response.put("snippets", snipHydrator.toSummaryResponses(snippetList));
+        response.put("nextCursor", nextCursor);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(response);
+    }
+}
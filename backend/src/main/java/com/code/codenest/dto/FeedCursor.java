@@ -0,0 +1,52 @@
+package com.code.codenest.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor over (created_at, id), handed to clients as "nextCursor"
+ * and passed back as "before" to fetch the following page. Message views use it
+ * over (sent_at, id) the same way.
+ */
+public final class FeedCursor {
+    private static final char SEPARATOR = '|';
+
+    private final LocalDateTime createdAt;
+    private final long id;
+
+    public FeedCursor(LocalDateTime createdAt, long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value was not produced by {@link #encode()}
+     */
+    public static FeedCursor decode(String value) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int split = raw.lastIndexOf(SEPARATOR);
+            if (split <= 0) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new FeedCursor(LocalDateTime.parse(raw.substring(0, split)), Long.parseLong(raw.substring(split + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+}
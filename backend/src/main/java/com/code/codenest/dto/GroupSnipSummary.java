@@ -0,0 +1,18 @@
+package com.code.codenest.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * List-view projection of a snip shared with a group; carries no content.
+ */
+public interface GroupSnipSummary {
+    // Id of the share, the keyset tie-breaker next to sharedAt
+    Long getId();
+    Long getSnipId();
+    String getUuid();
+    String getTitle();
+    Long getUserId();
+    LocalDateTime getCreatedAt();
+    Long getSharedById();
+    LocalDateTime getSharedAt();
+}
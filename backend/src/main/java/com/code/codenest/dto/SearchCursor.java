@@ -0,0 +1,51 @@
+package com.code.codenest.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor over (rank, id) for search results, handed to clients as
+ * "nextCursor" and passed back as "before" to fetch the following page.
+ */
+public final class SearchCursor {
+    private static final char SEPARATOR = '|';
+
+    private final double rank;
+    private final long id;
+
+    public SearchCursor(double rank, long id) {
+        this.rank = rank;
+        this.id = id;
+    }
+
+    public double getRank() {
+        return rank;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String encode() {
+        // Double.toString round-trips exactly, so the next page starts right after this row
+        String raw = Double.toString(rank) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value was not produced by {@link #encode()}
+     */
+    public static SearchCursor decode(String value) {
+        String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+        int split = raw.lastIndexOf(SEPARATOR);
+        if (split <= 0) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        // NumberFormatException is an IllegalArgumentException
+        double rank = Double.parseDouble(raw.substring(0, split));
+        if (!Double.isFinite(rank)) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return new SearchCursor(rank, Long.parseLong(raw.substring(split + 1)));
+    }
+}
@@ -25,18 +25,25 @@ public class SnipResponse {
     private long remainingSeconds;
 
     public SnipResponse(Snip snip, UserResponse author, List<String> tags) {
+        this(snip, snip.getViewCount(), author, tags);
+    }
+
+    // For snips shared through the snippet cache, whose view count is tracked outside the entity
+    public SnipResponse(Snip snip, long viewCount, UserResponse author, List<String> tags) {
         this.uuid = snip.getUuid();
         this.title = snip.getTitle();
         this.content = snip.getContent();
         this.expirationType = snip.getExpirationType();
         this.expirationValue = snip.getExpirationValue();
         this.createdAt = snip.getCreatedAt().format(FORMATTER);
-        this.viewCount = snip.getViewCount();
+        this.viewCount = viewCount;
         this.author = author;
         this.tags = tags;
-        this.isAccessible = snip.isAccessible(); // Calculate and store
-        this.remainingViews = snip.getRemainingViews();
-        this.remainingSeconds = snip.getRemainingSeconds();
+        // One clock read for both the accessibility check and the remaining time
+        long now = System.currentTimeMillis();
+        this.isAccessible = snip.isAccessibleAt(now, viewCount);
+        this.remainingViews = snip.getRemainingViews(viewCount);
+        this.remainingSeconds = snip.getRemainingSecondsAt(now);
     }
 
     // --- GETTERS ---
@@ -0,0 +1,22 @@
+package com.code.codenest.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * List-view projection of a snip: metadata plus the preview and content length stored on
+ * the snip when it is written, so feeds and lists never read or decode the content blob.
+ */
+public interface SnipSummary {
+    Long getId();
+    String getUuid();
+    Long getUserId();
+    String getTitle();
+    String getPreview();
+    Integer getContentLength();
+    String getExpirationType();
+    Long getExpirationValue();
+    LocalDateTime getCreatedAt();
+    LocalDateTime getExpiresAt();
+    Long getViewCount();
+    boolean isDeleted();
+}
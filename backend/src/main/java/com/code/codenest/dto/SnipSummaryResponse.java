@@ -0,0 +1,68 @@
+package com.code.codenest.dto;
+
+import com.code.codenest.model.SnipExpiry;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Feed and list entry: the same fields as {@link SnipResponse} except that the content is
+ * replaced by a short preview. The full content is only served by GET /api/code/{uuid}.
+ */
+public class SnipSummaryResponse {
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss");
+
+    private final String uuid;
+    private final String title;
+    private final String preview;
+    private final boolean truncated;
+    private final String expirationType;
+    private final long expirationValue;
+    private final String createdAt;
+    private final long viewCount;
+    private final UserResponse author;
+    private final List<String> tags;
+    private final boolean isAccessible;
+    private final long remainingViews;
+    private final long remainingSeconds;
+
+    public SnipSummaryResponse(SnipSummary snip, UserResponse author, List<String> tags) {
+        this.uuid = snip.getUuid();
+        this.title = snip.getTitle();
+        this.preview = snip.getPreview() != null ? snip.getPreview() : "";
+        this.truncated = snip.getContentLength() != null && snip.getContentLength() > this.preview.length();
+        this.expirationType = snip.getExpirationType();
+        this.expirationValue = snip.getExpirationValue() != null ? snip.getExpirationValue() : 0;
+        this.createdAt = snip.getCreatedAt().format(FORMATTER);
+        this.viewCount = snip.getViewCount() != null ? snip.getViewCount() : 0;
+        this.author = author;
+        this.tags = tags;
+
+        long deadlineMillis = SnipExpiry.deadlineMillis(snip.getExpirationType(), snip.getExpirationValue(),
+                snip.getCreatedAt(), snip.getExpiresAt());
+        long viewBudget = SnipExpiry.viewBudget(snip.getExpirationType(), snip.getExpirationValue());
+        long now = System.currentTimeMillis();
+        this.isAccessible = SnipExpiry.isAccessible(snip.isDeleted(), deadlineMillis, viewBudget, now, viewCount);
+        this.remainingViews = SnipExpiry.remainingViews(viewBudget, viewCount);
+        this.remainingSeconds = SnipExpiry.remainingSeconds(deadlineMillis, now);
+    }
+
+    public String getUuid() { return uuid; }
+    public String getTitle() { return title; }
+    public String getPreview() { return preview; }
+    public boolean isTruncated() { return truncated; }
+    public String getExpirationType() { return expirationType; }
+    public long getExpirationValue() { return expirationValue; }
+    public String getCreatedAt() { return createdAt; }
+    public long getViewCount() { return viewCount; }
+    public UserResponse getAuthor() { return author; }
+    public List<String> getTags() { return tags; }
+    public long getRemainingViews() { return remainingViews; }
+    public long getRemainingSeconds() { return remainingSeconds; }
+
+    @JsonProperty("isAccessible")
+    public boolean isAccessible() {
+        return isAccessible;
+    }
+}
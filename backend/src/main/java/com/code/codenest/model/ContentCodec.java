@@ -0,0 +1,84 @@
+package com.code.codenest.model;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Storage encodings for snip content. The first byte of every stored value names the
+ * codec that wrote it, so new codecs can be added without rewriting existing rows.
+ * <p>
+ * Content below {@value #COMPRESSION_THRESHOLD} bytes, or content that LZ4 does not
+ * shrink, is stored {@link #RAW}.
+ */
+public enum ContentCodec {
+    // [0][UTF-8 bytes]
+    RAW((byte) 0) {
+        @Override
+        String decodeBody(byte[] data) {
+            return new String(data, 1, data.length - 1, StandardCharsets.UTF_8);
+        }
+    },
+
+    // [1][original length, 4 bytes big-endian][LZ4 block]
+    LZ4((byte) 1) {
+        @Override
+        String decodeBody(byte[] data) {
+            int length = ByteBuffer.wrap(data, 1, 4).getInt();
+            byte[] utf8 = new byte[length];
+            DECOMPRESSOR.decompress(data, 5, utf8, 0, length);
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+    };
+
+    static final int COMPRESSION_THRESHOLD = 1024;
+
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+    private final byte header;
+
+    ContentCodec(byte header) {
+        this.header = header;
+    }
+
+    abstract String decodeBody(byte[] data);
+
+    public static byte[] encode(String content) {
+        if (content == null) {
+            return null;
+        }
+        byte[] utf8 = content.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length >= COMPRESSION_THRESHOLD) {
+            byte[] compressed = new byte[5 + COMPRESSOR.maxCompressedLength(utf8.length)];
+            compressed[0] = LZ4.header;
+            ByteBuffer.wrap(compressed, 1, 4).putInt(utf8.length);
+            int size = 5 + COMPRESSOR.compress(utf8, 0, utf8.length, compressed, 5);
+            if (size < utf8.length + 1) {
+                return Arrays.copyOf(compressed, size);
+            }
+        }
+        byte[] raw = new byte[utf8.length + 1];
+        raw[0] = RAW.header;
+        System.arraycopy(utf8, 0, raw, 1, utf8.length);
+        return raw;
+    }
+
+    public static String decode(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length == 0) {
+            return "";
+        }
+        return switch (data[0]) {
+            case 0 -> RAW.decodeBody(data);
+            case 1 -> LZ4.decodeBody(data);
+            default -> throw new IllegalStateException("Unknown content codec header " + data[0]);
+        };
+    }
+}
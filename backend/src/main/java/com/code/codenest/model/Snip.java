@@ -3,7 +3,6 @@ package com.code.codenest.model;
 import com.fasterxml.jackson.annotation.JsonGetter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.HashSet;
@@ -18,7 +17,10 @@ public class Snip {
     private static final Logger logger = LoggerFactory.getLogger(Snip.class);
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss");
 
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence: ids are handed out from blocks of 50, so inserts can be batched
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "snips_id_seq")
+    @SequenceGenerator(name = "snips_id_seq", sequenceName = "snips_id_seq", allocationSize = 50)
     private Long id;
 
     private String uuid = UUID.randomUUID().toString();
@@ -28,9 +30,29 @@ public class Snip {
 
     private String title;
 
-    @Column(columnDefinition = "text")
+    // Characters of content carried by list views; the rest is only loaded by uuid
+    public static final int PREVIEW_LENGTH = 200;
+
+    // Shared, content-addressed body; null once the snip has expired
+    @Column(name = "blob_id")
+    private Long blobId;
+
+    // Only fetched by SnipRepository.findWithBlobByUuid; decoded on first access
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "blob_id", insertable = false, updatable = false)
+    private SnipBlob blob;
+
+    @Transient
     private String content;
 
+    // Stored next to the encoded content so list views never have to decode it
+    @Column(name = "preview")
+    private String preview;
+
+    @Column(name = "content_length")
+    private Integer contentLength;
+
     @Column(name = "expiration_type")
     private String expirationType; // "TIME" or "VIEWS"
 
@@ -40,12 +62,23 @@ public class Snip {
     @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    // createdAt + expirationValue seconds for TIME-limited snips, so expiry can be swept by index
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
     @Column(name = "view_count")
     private Long viewCount = 0L;
 
     @Column(name = "is_deleted")
     private boolean isDeleted = false;
 
+    // Expiry model derived from expirationType/expirationValue so the hot accessibility
+    // checks are plain comparisons; Long.MAX_VALUE when the snip has no such limit
+    @Transient
+    private long deadlineMillis = SnipExpiry.NO_LIMIT;
+    @Transient
+    private long viewBudget = SnipExpiry.NO_LIMIT;
+
     // For backward compatibility
     @Transient
     private String authorUuid;
@@ -93,22 +126,74 @@ public class Snip {
         this.title = title;
     }
 
+    /**
+     * The content, decoded from the blob on first access; null while the blob's content sits
+     * in a segment file and has not been read with {@code SegmentBlobStore}.
+     */
     public String getContent() {
+        if (content == null && blob != null && blob.getData() != null) {
+            content = ContentCodec.decode(blob.getData());
+        }
         return content;
     }
 
+    /**
+     * Sets the content, kept exactly as given; it is stored once {@code SnipBlobStore} has given the
+     * snip a blob id.
+     */
     public void setContent(String content) {
         this.content = content;
+        this.preview = preview(this.content);
+        this.contentLength = this.content != null ? this.content.length() : null;
+    }
+
+    @JsonIgnore
+    public SnipBlob getBlob() {
+        return blob;
+    }
+
+    /**
+     * Decodes the content and lets go of the encoded blob, so a copy kept for a long time,
+     * e.g. by the snip cache, does not hold the body twice.
+     */
+    public void dropBlob() {
+        getContent();
+        blob = null;
+    }
+
+    public Long getBlobId() {
+        return blobId;
+    }
+
+    public void setBlobId(Long blobId) {
+        this.blobId = blobId;
     }
 
     // For backward compatibility
     public String getCode() {
-        return content;
+        return getContent();
     }
 
     // For backward compatibility
     public void setCode(String code) {
-        this.content = code;
+        setContent(code);
+    }
+
+    private static String preview(String content) {
+        if (content == null || content.length() <= PREVIEW_LENGTH) {
+            return content;
+        }
+        // Never split a surrogate pair
+        int end = Character.isHighSurrogate(content.charAt(PREVIEW_LENGTH - 1)) ? PREVIEW_LENGTH - 1 : PREVIEW_LENGTH;
+        return content.substring(0, end);
+    }
+
+    public String getPreview() {
+        return preview;
+    }
+
+    public Integer getContentLength() {
+        return contentLength;
     }
 
     public String getExpirationType() {
@@ -117,6 +202,7 @@ public class Snip {
 
     public void setExpirationType(String expirationType) {
         this.expirationType = expirationType;
+        computeExpiry();
     }
 
     public Long getExpirationValue() {
@@ -125,6 +211,7 @@ public class Snip {
 
     public void setExpirationValue(Long expirationValue) {
         this.expirationValue = expirationValue;
+        computeExpiry();
     }
 
     public LocalDateTime getCreatedAt() {
@@ -133,6 +220,31 @@ public class Snip {
 
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
+        computeExpiry();
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    @PrePersist
+    void computeExpiresAt() {
+        if ("TIME".equals(expirationType) && expirationValue != null && expirationValue > 0) {
+            expiresAt = createdAt.plusSeconds(expirationValue);
+        }
+        computeExpiry();
+    }
+
+    @PostLoad
+    void computeExpiry() {
+        deadlineMillis = SnipExpiry.deadlineMillis(expirationType, expirationValue, createdAt, expiresAt);
+        viewBudget = SnipExpiry.viewBudget(expirationType, expirationValue);
+    }
+
+    // Epoch millis after which a TIME-limited snip is expired; Long.MAX_VALUE otherwise
+    @JsonIgnore
+    public long getDeadlineMillis() {
+        return deadlineMillis;
     }
 
     // For backward compatibility
@@ -164,6 +276,7 @@ public class Snip {
     public void setTimeLimit(long seconds) {
         this.expirationType = "TIME";
         this.expirationValue = seconds;
+        computeExpiry();
     }
 
     // For backward compatibility
@@ -175,6 +288,7 @@ public class Snip {
     public void setViewLimit(long viewLimit) {
         this.expirationType = "VIEWS";
         this.expirationValue = viewLimit;
+        computeExpiry();
     }
 
     // For backward compatibility
@@ -182,54 +296,48 @@ public class Snip {
         return "VIEWS".equals(expirationType) ? expirationValue : 0L;
     }
 
+    // True when the snip expires after a fixed number of views
     @JsonIgnore
-    public boolean isAccessible() {
-        // Add logging here
-        logger.debug("Checking accessibility for Snip UUID {}: isDeleted={}, expirationType={}, expirationValue={}, viewCount={}",
-                this.uuid, this.isDeleted, this.expirationType, this.expirationValue, this.viewCount);
-
-        if (isDeleted) {
-            logger.debug("Snip {} inaccessible: isDeleted=true", this.uuid);
-            return false;
-        }
-
-        boolean timeOk = true;
-        if ("TIME".equals(expirationType) && expirationValue != null && expirationValue > 0) {
-            LocalDateTime expiryTime = createdAt.plusSeconds(expirationValue);
-            timeOk = LocalDateTime.now().isBefore(expiryTime);
-            logger.debug("Snip {} time check: expiryTime={}, now={}, timeOk={}", this.uuid, expiryTime, LocalDateTime.now(), timeOk);
-        }
+    public boolean isViewLimited() {
+        return "VIEWS".equals(expirationType) && expirationValue != null && expirationValue > 0;
+    }
 
-        boolean viewsOk = true;
-        if ("VIEWS".equals(expirationType) && expirationValue != null && expirationValue > 0) {
-            viewsOk = viewCount < expirationValue;
-            logger.debug("Snip {} views check: viewCount={}, expirationValue={}, viewsOk={}", this.uuid, viewCount, expirationValue, viewsOk);
+    @JsonIgnore
+    public boolean isAccessible() {
+        return isAccessibleAt(System.currentTimeMillis(), viewCount != null ? viewCount : 0);
+    }
+
+    /**
+     * Accessibility at {@code nowMillis} given {@code views} views so far, so callers can
+     * pass one clock read and a view count tracked outside the entity.
+     */
+    public boolean isAccessibleAt(long nowMillis, long views) {
+        boolean accessible = SnipExpiry.isAccessible(isDeleted, deadlineMillis, viewBudget, nowMillis, views);
+        if (logger.isTraceEnabled()) {
+            logger.trace("Snip {} accessible={}: isDeleted={}, deadlineMillis={}, views={}, viewBudget={}",
+                    uuid, accessible, isDeleted, deadlineMillis, views, viewBudget);
         }
-
-        boolean accessible = timeOk && viewsOk;
-        logger.debug("Snip {} final accessibility: {}", this.uuid, accessible);
         return accessible;
     }
 
     // For backward compatibility
     @JsonGetter("remainingSeconds")
     public long getRemainingSeconds() {
-        if ("TIME".equals(expirationType) && expirationValue > 0) {
-            LocalDateTime expiryTime = createdAt.plusSeconds(expirationValue);
-            if (LocalDateTime.now().isBefore(expiryTime)) {
-                return Duration.between(LocalDateTime.now(), expiryTime).getSeconds();
-            }
-        }
-        return 0;
+        return getRemainingSecondsAt(System.currentTimeMillis());
+    }
+
+    public long getRemainingSecondsAt(long nowMillis) {
+        return SnipExpiry.remainingSeconds(deadlineMillis, nowMillis);
     }
 
     // For backward compatibility
     @JsonGetter("remainingViews")
     public long getRemainingViews() {
-        if ("VIEWS".equals(expirationType) && expirationValue > 0) {
-            return Math.max(expirationValue - viewCount, 0);
-        }
-        return 0;
+        return getRemainingViews(viewCount != null ? viewCount : 0);
+    }
+
+    public long getRemainingViews(long views) {
+        return SnipExpiry.remainingViews(viewBudget, views);
     }
 
     // For backward compatibility
@@ -0,0 +1,94 @@
+package com.code.codenest.model;
+
+import jakarta.persistence.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+
+/**
+ * Snip content stored once per distinct body, keyed by the SHA-256 of the content exactly
+ * as it was written. {@code refCount} is the number of live snips pointing at the blob; blobs that
+ * drop to zero are deleted. Rows are written by {@code SnipBlobStore}, never through JPA.
+ */
+@Entity
+@Table(name = "snip_blobs")
+public class SnipBlob {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private byte[] hash;
+
+    // Written by ContentCodec; null when the content lives in a SegmentBlobStore segment
+    private byte[] data;
+
+    @Column(name = "segment_id")
+    private Integer segmentId;
+
+    @Column(name = "segment_offset")
+    private Long segmentOffset;
+
+    @Column(name = "segment_length")
+    private Integer segmentLength;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    protected SnipBlob() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public byte[] getHash() {
+        return hash;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public Integer getSegmentId() {
+        return segmentId;
+    }
+
+    public Long getSegmentOffset() {
+        return segmentOffset;
+    }
+
+    public Integer getSegmentLength() {
+        return segmentLength;
+    }
+
+    public boolean isInSegment() {
+        return segmentId != null;
+    }
+
+    public int getRefCount() {
+        return refCount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * SHA-256 of the UTF-8 bytes of the content. Content is stored and returned byte for
+     * byte, so only identical bodies share a blob; a CRLF and an LF copy of the same paste
+     * are two blobs.
+     */
+    public static byte[] hash(String content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
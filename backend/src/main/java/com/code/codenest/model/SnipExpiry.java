@@ -0,0 +1,50 @@
+package com.code.codenest.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Expiry arithmetic shared by {@link Snip} and the list projections, expressed over an
+ * epoch-millis deadline and a view budget (Long.MAX_VALUE when there is no such limit).
+ * Everything past {@link #deadlineMillis} and {@link #viewBudget} is allocation-free.
+ */
+public final class SnipExpiry {
+    public static final long NO_LIMIT = Long.MAX_VALUE;
+
+    private SnipExpiry() {
+    }
+
+    public static long deadlineMillis(String expirationType, Long expirationValue,
+                                      LocalDateTime createdAt, LocalDateTime expiresAt) {
+        if (!"TIME".equals(expirationType) || expirationValue == null || expirationValue <= 0 || createdAt == null) {
+            return NO_LIMIT;
+        }
+        LocalDateTime deadline = expiresAt != null ? expiresAt : createdAt.plusSeconds(expirationValue);
+        return deadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public static long viewBudget(String expirationType, Long expirationValue) {
+        if (!"VIEWS".equals(expirationType) || expirationValue == null || expirationValue <= 0) {
+            return NO_LIMIT;
+        }
+        return expirationValue;
+    }
+
+    public static boolean isAccessible(boolean deleted, long deadlineMillis, long viewBudget, long nowMillis, long views) {
+        return !deleted && nowMillis < deadlineMillis && views < viewBudget;
+    }
+
+    public static long remainingSeconds(long deadlineMillis, long nowMillis) {
+        if (deadlineMillis == NO_LIMIT || nowMillis >= deadlineMillis) {
+            return 0;
+        }
+        return (deadlineMillis - nowMillis) / 1000;
+    }
+
+    public static long remainingViews(long viewBudget, long views) {
+        if (viewBudget == NO_LIMIT) {
+            return 0;
+        }
+        return Math.max(viewBudget - views, 0);
+    }
+}
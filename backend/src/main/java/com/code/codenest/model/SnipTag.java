@@ -2,6 +2,8 @@ package com.code.codenest.model;
 
 import jakarta.persistence.*;
 
+import java.time.LocalDateTime;
+
 @Entity
 @Table(name = "snip_tags")
 public class SnipTag {
@@ -16,6 +18,11 @@ public class SnipTag {
     @JoinColumn(name = "tag_id")
     private Tag tag;
 
+    // Copy of the snip's created_at, written with the link, so a tag's snips are listed
+    // newest first off one index
+    @Column(name = "snip_created_at", insertable = false, updatable = false)
+    private LocalDateTime snipCreatedAt;
+
     public SnipTag() {
     }
 
@@ -38,4 +45,8 @@ public class SnipTag {
     public void setTag(Tag tag) {
         this.tag = tag;
     }
+
+    public LocalDateTime getSnipCreatedAt() {
+        return snipCreatedAt;
+    }
 }
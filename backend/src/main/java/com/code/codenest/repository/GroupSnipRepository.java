@@ -1,12 +1,15 @@
 package com.code.codenest.repository;
 
+import com.code.codenest.dto.GroupSnipSummary;
 import com.code.codenest.model.GroupSnip;
 import com.code.codenest.model.Snip;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,4 +27,25 @@ public interface GroupSnipRepository extends JpaRepository<GroupSnip, Long> {
     // Get snippet details for a group with author info
     @Query("SELECT gs FROM GroupSnip gs JOIN FETCH gs.snip s WHERE gs.group.id = :groupId ORDER BY gs.sharedAt DESC")
     List<GroupSnip> findByGroupIdWithSnips(@Param("groupId") Long groupId);
+
+    // Summaries of the snippets above, without content and with expired snippets filtered
+    // out by the database. Keyset pagination over (sharedAt, id), so a long list is read one
+    // short query at a time; the Pageable only carries the page size
+    String GROUP_SNIP_SUMMARY = "gs.id AS id, s.id AS snipId, s.uuid AS uuid, s.title AS title, s.userId AS userId, " +
+            "s.createdAt AS createdAt, gs.sharedById AS sharedById, gs.sharedAt AS sharedAt";
+
+    @Query("SELECT " + GROUP_SNIP_SUMMARY + " FROM GroupSnip gs JOIN gs.snip s " +
+            "WHERE gs.group.id = :groupId AND " + SnipRepository.LIVE +
+            " ORDER BY gs.sharedAt DESC, gs.id DESC")
+    List<GroupSnipSummary> findLiveSummariesByGroupId(@Param("groupId") Long groupId, @Param("now") LocalDateTime now,
+                                                      Pageable page);
+
+    @Query("SELECT " + GROUP_SNIP_SUMMARY + " FROM GroupSnip gs JOIN gs.snip s " +
+            "WHERE gs.group.id = :groupId AND " + SnipRepository.LIVE +
+            " AND (gs.sharedAt < :sharedAt OR (gs.sharedAt = :sharedAt AND gs.id < :id))" +
+            " ORDER BY gs.sharedAt DESC, gs.id DESC")
+    List<GroupSnipSummary> findLiveSummariesByGroupIdBefore(@Param("groupId") Long groupId,
+                                                            @Param("sharedAt") LocalDateTime sharedAt,
+                                                            @Param("id") Long id,
+                                                            @Param("now") LocalDateTime now, Pageable page);
 }
\ No newline at end of file
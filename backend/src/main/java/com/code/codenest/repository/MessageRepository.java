@@ -1,20 +1,52 @@
 package com.code.codenest.repository;
 
 import com.code.codenest.model.Message;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
     List<Message> findBySenderIdAndReceiverId(Long senderId, Long receiverId);
-    List<Message> findByReceiverIdOrderBySentAtDesc(Long receiverId);
-    List<Message> findBySenderIdOrderBySentAtDesc(Long senderId);
 
-    // Query to get all messages between two users, sorted by time
-    @Query("SELECT m FROM Message m WHERE (m.senderId = :userId1 AND m.receiverId = :userId2) OR (m.senderId = :userId2 AND m.receiverId = :userId1) ORDER BY m.sentAt ASC")
-    List<Message> findConversation(@Param("userId1") Long userId1, @Param("userId2") Long userId2);
-}
\ No newline at end of file
+    // Keyset pagination over (sentAt, id), newest first; the Pageable only carries the page size
+    String BEFORE = "(m.sentAt < :sentAt OR (m.sentAt = :sentAt AND m.id < :id))";
+
+    @Query("SELECT m FROM Message m WHERE m.receiverId = :receiverId ORDER BY m.sentAt DESC, m.id DESC")
+    List<Message> findInbox(@Param("receiverId") Long receiverId, Pageable page);
+
+    @Query("SELECT m FROM Message m WHERE m.receiverId = :receiverId AND " + BEFORE + " ORDER BY m.sentAt DESC, m.id DESC")
+    List<Message> findInboxBefore(@Param("receiverId") Long receiverId, @Param("sentAt") LocalDateTime sentAt,
+                                  @Param("id") Long id, Pageable page);
+
+    @Query("SELECT m FROM Message m WHERE m.senderId = :senderId ORDER BY m.sentAt DESC, m.id DESC")
+    List<Message> findSent(@Param("senderId") Long senderId, Pageable page);
+
+    @Query("SELECT m FROM Message m WHERE m.senderId = :senderId AND " + BEFORE + " ORDER BY m.sentAt DESC, m.id DESC")
+    List<Message> findSentBefore(@Param("senderId") Long senderId, @Param("sentAt") LocalDateTime sentAt,
+                                 @Param("id") Long id, Pageable page);
+
+    // Messages between two users, newest first. One branch per direction instead of an OR
+    // across both, so each branch reads its page straight off the (sender_id, receiver_id,
+    // sent_at, id) index and at most 2 * limit rows are merged
+    String CONVERSATION_SENT = "SELECT * FROM messages WHERE sender_id = :userId1 AND receiver_id = :userId2";
+    String CONVERSATION_RECEIVED = "SELECT * FROM messages WHERE sender_id = :userId2 AND receiver_id = :userId1";
+    String CONVERSATION_BEFORE = " AND (sent_at, id) < (:sentAt, :id)";
+    String CONVERSATION_PAGE = " ORDER BY sent_at DESC, id DESC LIMIT :limit";
+
+    @Query(value = "(" + CONVERSATION_SENT + CONVERSATION_PAGE + ") UNION ALL (" +
+            CONVERSATION_RECEIVED + CONVERSATION_PAGE + ")" + CONVERSATION_PAGE, nativeQuery = true)
+    List<Message> findConversation(@Param("userId1") Long userId1, @Param("userId2") Long userId2,
+                                   @Param("limit") int limit);
+
+    @Query(value = "(" + CONVERSATION_SENT + CONVERSATION_BEFORE + CONVERSATION_PAGE + ") UNION ALL (" +
+            CONVERSATION_RECEIVED + CONVERSATION_BEFORE + CONVERSATION_PAGE + ")" + CONVERSATION_PAGE, nativeQuery = true)
+    List<Message> findConversationBefore(@Param("userId1") Long userId1, @Param("userId2") Long userId2,
+                                         @Param("sentAt") LocalDateTime sentAt, @Param("id") Long id,
+                                         @Param("limit") int limit);
+}
@@ -1,10 +1,17 @@
 package com.code.codenest.repository;
 
+import com.code.codenest.dto.SnipSummary;
 import com.code.codenest.model.Snip;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,13 +19,71 @@ import java.util.Optional;
 public interface SnipRepository extends JpaRepository<Snip, Long> {
     Optional<Snip> findByUuid(String uuid);
 
-    @Query("SELECT s FROM Snip s WHERE s.isDeleted = false ORDER BY s.createdAt DESC") // Use createdAt or id
-    List<Snip> findTop10ByOrderByCreatedAtDesc();
+    // The snip together with its content blob, for serving the full content
+    @EntityGraph(attributePaths = "blob")
+    Optional<Snip> findWithBlobByUuid(String uuid);
 
-    default List<Snip> findLatest10() {
-        return findTop10ByOrderByCreatedAtDesc();
-    }
+    // Not deleted, not past its TIME expiry and not out of views; expects a :now parameter
+    String LIVE = "s.isDeleted = false " +
+            "AND (s.expiresAt IS NULL OR s.expiresAt > :now) " +
+            "AND (COALESCE(s.expirationType, '') <> 'VIEWS' OR COALESCE(s.expirationValue, 0) <= 0 " +
+            "OR s.viewCount < s.expirationValue)";
+
+    // LIVE in SQL over snips aliased s, for statements run through JdbcTemplate; expects the
+    // current time as its only parameter
+    String LIVE_SQL = "s.is_deleted = false " +
+            "AND (s.expires_at IS NULL OR s.expires_at > ?) " +
+            "AND (COALESCE(s.expiration_type, '') <> 'VIEWS' OR COALESCE(s.expiration_value, 0) <= 0 " +
+            "OR s.view_count < s.expiration_value)";
+
+    // Select list for SnipSummary; preview and length are stored on write, so the encoded
+    // content is never read for a list
+    String SUMMARY = "s.id AS id, s.uuid AS uuid, s.userId AS userId, s.title AS title, " +
+            "s.preview AS preview, s.contentLength AS contentLength, " +
+            "s.expirationType AS expirationType, s.expirationValue AS expirationValue, " +
+            "s.createdAt AS createdAt, s.expiresAt AS expiresAt, s.viewCount AS viewCount, s.isDeleted AS deleted";
+
+    // Keyset pagination over (createdAt, id); the Pageable only carries the page size
+    @Query("SELECT " + SUMMARY + " FROM Snip s WHERE " + LIVE + " ORDER BY s.createdAt DESC, s.id DESC")
+    List<SnipSummary> findLatest(@Param("now") LocalDateTime now, Pageable page);
+
+    @Query("SELECT " + SUMMARY + " FROM Snip s WHERE " + LIVE + " " +
+            "AND (s.createdAt < :createdAt OR (s.createdAt = :createdAt AND s.id < :id)) " +
+            "ORDER BY s.createdAt DESC, s.id DESC")
+    List<SnipSummary> findLatestBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                @Param("now") LocalDateTime now, Pageable page);
+
+    // Keyset pagination over (createdAt, id) of the snips under one tag, read off the copy of
+    // created_at on the tag link
+    @Query("SELECT " + SUMMARY + " FROM SnipTag st JOIN st.snip s WHERE st.tag.id = :tagId AND " + LIVE + " " +
+            "ORDER BY st.snipCreatedAt DESC, st.snip.id DESC")
+    List<SnipSummary> findLiveByTag(@Param("tagId") Long tagId, @Param("now") LocalDateTime now, Pageable page);
+
+    @Query("SELECT " + SUMMARY + " FROM SnipTag st JOIN st.snip s WHERE st.tag.id = :tagId AND " + LIVE + " " +
+            "AND (st.snipCreatedAt < :createdAt OR (st.snipCreatedAt = :createdAt AND st.snip.id < :id)) " +
+            "ORDER BY st.snipCreatedAt DESC, st.snip.id DESC")
+    List<SnipSummary> findLiveByTagBefore(@Param("tagId") Long tagId, @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("id") Long id, @Param("now") LocalDateTime now, Pageable page);
+
+    // Summaries of the given snips in no particular order, e.g. search hits ranked elsewhere
+    @Query("SELECT " + SUMMARY + " FROM Snip s WHERE s.id IN :ids")
+    List<SnipSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
 
     List<Snip> findByUserIdOrderByIdDesc(Long userId);
+
+    // Summaries of the rows of findByUserIdOrderByIdDesc, one page at a time by keyset over the
+    // id; pass Long.MAX_VALUE for the first page
+    @Query("SELECT " + SUMMARY + " FROM Snip s WHERE s.userId = :userId AND s.id < :before ORDER BY s.id DESC")
+    List<SnipSummary> findSummariesByUserIdBefore(@Param("userId") Long userId, @Param("before") Long before,
+                                                  Pageable page);
+
+    // Consumes one view of a VIEWS-limited snip in a single statement and returns the new
+    // view count; empty once the limit is used up. Not @Modifying: RETURNING yields a row.
+    @Transactional
+    @Query(value = "UPDATE snips SET view_count = view_count + 1 " +
+            "WHERE uuid = :uuid AND expiration_type = 'VIEWS' AND is_deleted = false " +
+            "AND view_count < expiration_value " +
+            "RETURNING view_count", nativeQuery = true)
+    Optional<Long> consumeView(@Param("uuid") String uuid);
 }
 
@@ -2,8 +2,11 @@ package com.code.codenest.repository;
 
 import com.code.codenest.model.SnipTag;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -11,4 +14,14 @@ public interface SnipTagRepository extends JpaRepository<SnipTag, Long> {
     List<SnipTag> findBySnipId(Long snipId);
     List<SnipTag> findByTagId(Long tagId);
     void deleteBySnipIdAndTagId(Long snipId, Long tagId);
-}
\ No newline at end of file
+
+    // Tag names for a whole page of snips in one round trip
+    @Query("SELECT st.snip.id AS snipId, t.name AS tagName FROM SnipTag st JOIN st.tag t " +
+            "WHERE st.snip.id IN :snipIds ORDER BY st.id")
+    List<SnipTagName> findTagNamesBySnipIds(@Param("snipIds") Collection<Long> snipIds);
+
+    interface SnipTagName {
+        Long getSnipId();
+        String getTagName();
+    }
+}
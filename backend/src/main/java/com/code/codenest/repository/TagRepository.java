@@ -2,11 +2,24 @@ package com.code.codenest.repository;
 
 import com.code.codenest.model.Tag;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TagRepository extends JpaRepository<Tag, Long> {
     Optional<Tag> findByName(String name);
+
+    // Tags by number of live snips, read off the maintained tag_counts rather than snip_tags
+    @Query(value = "SELECT t.name AS name, c.snip_count AS count FROM tag_counts c JOIN tags t ON t.id = c.tag_id " +
+            "WHERE c.snip_count > 0 ORDER BY c.snip_count DESC, c.tag_id LIMIT :limit", nativeQuery = true)
+    List<TagUsage> findMostUsed(@Param("limit") int limit);
+
+    interface TagUsage {
+        String getName();
+        Long getCount();
+    }
 }
\ No newline at end of file
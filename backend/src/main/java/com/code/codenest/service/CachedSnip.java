@@ -0,0 +1,65 @@
+package com.code.codenest.service;
+
+import com.code.codenest.dto.UserResponse;
+import com.code.codenest.model.Snip;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Immutable payload of a snip (content, title, author, tags) as held by {@link SnipCache}.
+ * Only the view count changes after creation; it is tracked separately from the
+ * detached {@link Snip}, which must not be modified once cached. The snip keeps its
+ * decoded content only; the encoded blob is dropped on creation.
+ */
+public class CachedSnip {
+
+    private final Snip snip;
+    private final UserResponse author;
+    private final List<String> tags;
+    private final long expiresAtMillis; // Long.MAX_VALUE when the snip has no TIME limit
+    private final AtomicLong viewCount;
+
+    public CachedSnip(Snip snip, UserResponse author, List<String> tags) {
+        snip.dropBlob();
+        this.snip = snip;
+        this.author = author;
+        this.tags = List.copyOf(tags);
+        this.viewCount = new AtomicLong(snip.getViewCount());
+        this.expiresAtMillis = snip.getDeadlineMillis();
+    }
+
+    public Snip getSnip() {
+        return snip;
+    }
+
+    public UserResponse getAuthor() {
+        return author;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public long getViewCount() {
+        return viewCount.get();
+    }
+
+    // A view counted through the buffer; returns the count to display
+    public long countView() {
+        return viewCount.incrementAndGet();
+    }
+
+    // Catch up with the authoritative count returned by the database
+    public long observeViewCount(long count) {
+        return viewCount.accumulateAndGet(count, Math::max);
+    }
+
+    public boolean isViewLimitReached() {
+        return snip.isViewLimited() && viewCount.get() >= snip.getExpirationValue();
+    }
+}
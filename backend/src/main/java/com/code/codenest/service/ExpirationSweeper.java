@@ -0,0 +1,65 @@
+package com.code.codenest.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Periodically expires TIME-limited snips whose deadline has passed, walking the
+ * expires_at index in batches until nothing is due, then deletes unreferenced blobs.
+ */
+@Component
+public class ExpirationSweeper {
+    private static final Logger logger = LoggerFactory.getLogger(ExpirationSweeper.class);
+
+    private final SnipExpiryService snipExpiryService;
+    private final SnipBlobStore snipBlobStore;
+    private final int batchSize;
+
+    @Autowired
+    public ExpirationSweeper(SnipExpiryService snipExpiryService,
+                             SnipBlobStore snipBlobStore,
+                             @Value("${codenest.expiry.sweep-batch-size:500}") int batchSize) {
+        this.snipExpiryService = snipExpiryService;
+        this.snipBlobStore = snipBlobStore;
+        this.batchSize = batchSize;
+    }
+
+    // Ahead of ExpiryScheduler.load(), which reads the backfilled deadlines
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int updated = snipExpiryService.backfillExpiresAt();
+        if (updated > 0) {
+            logger.info("Backfilled expires_at for {} snips", updated);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${codenest.expiry.sweep-interval-ms:30000}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            int expired;
+            do {
+                expired = snipExpiryService.expireDue(now, batchSize);
+            } while (expired == batchSize);
+            // Blobs whose release was not followed by a collect, e.g. after a crash
+            int collected = snipBlobStore.collectAll();
+            if (collected > 0) {
+                logger.info("Collected {} unreferenced snip blobs", collected);
+            }
+        } catch (DataAccessException e) {
+            logger.error("Expiration sweep failed, will retry on the next run", e);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.code.codenest.service;
+
+import com.code.codenest.model.Snip;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Expires TIME-limited snips close to their deadline by keeping every pending deadline in
+ * an in-process {@link TimingWheel}, instead of waiting for the next {@link ExpirationSweeper}
+ * run. The sweeper stays in place as the backstop for deadlines this instance did not see,
+ * e.g. snips created on another instance or ticks lost to a failed write.
+ */
+@Component
+public class ExpiryScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(ExpiryScheduler.class);
+
+    private static final String PENDING_SQL =
+            "SELECT id, expires_at FROM snips WHERE is_deleted = false AND expires_at IS NOT NULL";
+    private static final int LOAD_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final SnipExpiryService snipExpiryService;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TimingWheel wheel;
+
+    @Autowired
+    public ExpiryScheduler(JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           SnipExpiryService snipExpiryService,
+                           @Value("${codenest.expiry.wheel.tick-ms:100}") long tickMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.snipExpiryService = snipExpiryService;
+        this.wheel = new TimingWheel(tickMillis, System.currentTimeMillis());
+    }
+
+    /**
+     * Loads every pending deadline; runs after {@link ExpirationSweeper#backfill()} so older
+     * snips already have expires_at set.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        // The PostgreSQL driver only streams with a fetch size inside a transaction,
+        // so millions of pending snips never sit in one result set in memory
+        int[] loaded = {0};
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(PENDING_SQL);
+            ps.setFetchSize(LOAD_FETCH_SIZE);
+            return ps;
+        }, rs -> {
+            schedule(rs.getLong("id"), rs.getTimestamp("expires_at").getTime());
+            loaded[0]++;
+        }));
+        logger.info("Scheduled {} pending snip expirations", loaded[0]);
+    }
+
+    /**
+     * Schedules the expiry of a newly saved snip; snips without a TIME deadline are ignored.
+     */
+    public void schedule(Snip snip) {
+        if (snip.getId() == null || snip.getExpiresAt() == null) {
+            return;
+        }
+        schedule(snip.getId(), snip.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    private void schedule(long snipId, long deadlineMillis) {
+        lock.lock();
+        try {
+            wheel.schedule(snipId, deadlineMillis);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedRateString = "${codenest.expiry.wheel.tick-ms:100}")
+    public void tick() {
+        List<Long> due = new ArrayList<>();
+        lock.lock();
+        try {
+            wheel.advance(System.currentTimeMillis(), due::add);
+        } finally {
+            lock.unlock();
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        try {
+            snipExpiryService.expire(due, LocalDateTime.now());
+        } catch (DataAccessException e) {
+            // The sweeper picks these up on its next run
+            logger.error("Failed to expire {} due snips, leaving them to the sweeper", due.size(), e);
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.code.codenest.service;
+
+import com.code.codenest.model.SnipBlob;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Keeps large snip bodies out of Postgres and off the Java heap, in append-only segment
+ * files on local disk that are read through {@link FileChannel#map memory mappings}.
+ * snip_blobs holds the (segment, offset, length) of each body in place of its data.
+ * <p>
+ * A record is [length, 4 bytes][SHA-256 of the content, 32 bytes][UTF-8 content]. Content
+ * is stored uncompressed so it can be written to a response straight from the mapping.
+ * Blobs deleted from snip_blobs leave dead records behind; {@link #compact} copies the
+ * live records out of mostly dead segments and deletes them.
+ * <p>
+ * Opt-in with {@code codenest.blob-segments.enabled}. Segment files are local to the
+ * instance, so this is only suitable for a single application instance.
+ */
+@Component
+public class SegmentBlobStore {
+    private static final Logger logger = LoggerFactory.getLogger(SegmentBlobStore.class);
+
+    static final int HEADER_SIZE = 4 + 32;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    private static final String LIVE_RECORDS_SQL =
+            "SELECT id, segment_offset, segment_length FROM snip_blobs WHERE segment_id = ? ORDER BY segment_offset";
+    private static final String MOVE_SQL = "UPDATE snip_blobs SET segment_id = ?, segment_offset = ? " +
+            "WHERE id = ? AND segment_id = ? AND segment_offset = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final Path directory;
+    private final int thresholdBytes;
+    private final long segmentSize;
+    private final double compactionLiveRatio;
+
+    // Held across file writes and segment rollover; a ReentrantLock, unlike synchronized,
+    // does not pin a virtual thread to its carrier while it waits on that I/O
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ConcurrentHashMap<Integer, MappedByteBuffer> mappings = new ConcurrentHashMap<>();
+    // Appends per segment from transactions that have not completed yet. Their pointers may
+    // still be committed, so compaction leaves these segments alone until the count is gone.
+    private final ConcurrentHashMap<Integer, Integer> uncommitted = new ConcurrentHashMap<>();
+    // Compacted segments, deleted on the next compaction run so in-flight reads can finish
+    private final Set<Integer> retired = ConcurrentHashMap.newKeySet();
+    private FileChannel active;
+    private int activeSegment;
+    private long activePosition;
+
+    @Autowired
+    public SegmentBlobStore(JdbcTemplate jdbcTemplate,
+                            @Value("${codenest.blob-segments.enabled:false}") boolean enabled,
+                            @Value("${codenest.blob-segments.directory:data/blob-segments}") Path directory,
+                            @Value("${codenest.blob-segments.threshold-bytes:262144}") int thresholdBytes,
+                            @Value("${codenest.blob-segments.segment-size:67108864}") long segmentSize,
+                            @Value("${codenest.blob-segments.compaction-live-ratio:0.5}") double compactionLiveRatio) {
+        if (segmentSize > Integer.MAX_VALUE) {
+            // A single MappedByteBuffer cannot address more
+            throw new IllegalArgumentException("codenest.blob-segments.segment-size must be below 2 GiB");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.directory = directory;
+        this.thresholdBytes = thresholdBytes;
+        this.segmentSize = segmentSize;
+        this.compactionLiveRatio = compactionLiveRatio;
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        int last = segments().stream().max(Integer::compare).orElse(1);
+        openForAppend(last);
+        logger.info("Segment blob store at {}, appending to segment {}", directory.toAbsolutePath(), activeSegment);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (active != null) {
+            active.close();
+        }
+    }
+
+    /**
+     * True if content of {@code utf8Length} bytes belongs in a segment rather than in Postgres.
+     */
+    public boolean accepts(int utf8Length) {
+        return enabled && utf8Length >= thresholdBytes && utf8Length <= segmentSize - HEADER_SIZE;
+    }
+
+    /**
+     * Appends a record and forces it to disk, so the pointer may be committed right after.
+     * Call it in the transaction that commits the pointer: its segment is not compacted
+     * until that transaction completes.
+     */
+    public Pointer append(byte[] hash, byte[] utf8) {
+        appendLock.lock();
+        try {
+            Pointer pointer = write(hash, utf8);
+            // Under the lock, so a compaction that sees the segment sealed also sees the hold
+            holdUntilCompletion(pointer.segment());
+            return pointer;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private Pointer write(byte[] hash, byte[] utf8) {
+        appendLock.lock();
+        try {
+            int recordSize = HEADER_SIZE + utf8.length;
+            if (activePosition > 0 && activePosition + recordSize > segmentSize) {
+                openForAppend(activeSegment + 1);
+            }
+            ByteBuffer record = ByteBuffer.allocate(recordSize);
+            record.putInt(utf8.length).put(hash).put(utf8).flip();
+            long position = activePosition;
+            while (record.hasRemaining()) {
+                active.write(record, position + record.position());
+            }
+            active.force(false);
+            activePosition += recordSize;
+            return new Pointer(activeSegment, position + HEADER_SIZE, utf8.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to segment " + activeSegment, e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Read-only view of the content, backed by the mapping rather than the heap.
+     */
+    public ByteBuffer read(Pointer pointer) {
+        MappedByteBuffer mapping = mapping(pointer.segment(), pointer.offset() + pointer.length());
+        return mapping.slice((int) pointer.offset(), pointer.length()).asReadOnlyBuffer();
+    }
+
+    public String readString(Pointer pointer) {
+        return StandardCharsets.UTF_8.decode(read(pointer)).toString();
+    }
+
+    /**
+     * Writes the content to {@code out} in small chunks straight from the mapping, so the
+     * body is never materialized on the heap.
+     */
+    public void transferTo(Pointer pointer, OutputStream out) throws IOException {
+        ByteBuffer content = read(pointer);
+        WritableByteChannel channel = Channels.newChannel(out);
+        while (content.hasRemaining()) {
+            channel.write(content);
+        }
+    }
+
+    /**
+     * Rewrites sealed segments in which less than {@code compaction-live-ratio} of the bytes
+     * still belong to a blob: live records are appended to the active segment, their pointers
+     * moved, and the old segment is deleted on the following run.
+     */
+    @Scheduled(fixedDelayString = "${codenest.blob-segments.compaction-interval-ms:3600000}")
+    public void compact() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            for (Integer segment : List.copyOf(retired)) {
+                mappings.remove(segment);
+                Files.deleteIfExists(segmentPath(segment));
+                retired.remove(segment);
+                logger.info("Deleted compacted segment {}", segment);
+            }
+            // Appends may roll over meanwhile; a segment sealed after this read is compacted next run
+            int current;
+            appendLock.lock();
+            try {
+                current = activeSegment;
+            } finally {
+                appendLock.unlock();
+            }
+            for (int segment : segments()) {
+                if (segment < current && !retired.contains(segment) && !uncommitted.containsKey(segment)) {
+                    compactSegment(segment);
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Segment compaction failed, will retry on the next run", e);
+        }
+    }
+
+    private void holdUntilCompletion(int segment) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        uncommitted.merge(segment, 1, Integer::sum);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                // After commit, so a compaction that no longer sees the hold sees the pointer
+                uncommitted.computeIfPresent(segment, (s, count) -> count > 1 ? count - 1 : null);
+            }
+        });
+    }
+
+    private void compactSegment(int segment) throws IOException {
+        long fileSize = Files.size(segmentPath(segment));
+        List<long[]> live = jdbcTemplate.query(LIVE_RECORDS_SQL, (rs, rowNum) -> new long[]{
+                rs.getLong("id"), rs.getLong("segment_offset"), rs.getInt("segment_length")}, segment);
+        long liveBytes = live.stream().mapToLong(record -> HEADER_SIZE + record[2]).sum();
+        if (liveBytes >= compactionLiveRatio * fileSize) {
+            return;
+        }
+
+        for (long[] record : live) {
+            long offset = record[1];
+            int length = (int) record[2];
+            MappedByteBuffer mapping = mapping(segment, offset + length);
+            byte[] hash = new byte[32];
+            byte[] utf8 = new byte[length];
+            mapping.get((int) offset - hash.length, hash);
+            mapping.get((int) offset, utf8);
+
+            Pointer to = write(hash, utf8);
+            // A blob deleted meanwhile matches nothing and its copy is simply dead
+            jdbcTemplate.update(MOVE_SQL, to.segment(), to.offset(), record[0], segment, offset);
+        }
+        retired.add(segment);
+        logger.info("Compacted segment {}: moved {} live records ({} of {} bytes)", segment, live.size(), liveBytes, fileSize);
+    }
+
+    private MappedByteBuffer mapping(int segment, long end) {
+        MappedByteBuffer current = mappings.get(segment);
+        if (current != null && current.capacity() >= end) {
+            return current;
+        }
+        // The active segment keeps growing; map it again once a read reaches past the mapping.
+        // Mapped outside any map lock: compute() would hold a monitor across the I/O and pin
+        // a virtual thread, and racing mappings of the same file are harmless.
+        try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return mappings.merge(segment, mapped, (old, fresh) -> old.capacity() >= fresh.capacity() ? old : fresh);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map segment " + segment, e);
+        }
+    }
+
+    private void openForAppend(int segment) throws IOException {
+        if (active != null) {
+            active.close();
+        }
+        active = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeSegment = segment;
+        activePosition = active.size();
+    }
+
+    private List<Integer> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Integer.parseInt(name, SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length(), 10))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Location of a blob's content in a segment file.
+     */
+    public record Pointer(int segment, long offset, int length) {
+
+        public static Pointer of(SnipBlob blob) {
+            return new Pointer(blob.getSegmentId(), blob.getSegmentOffset(), blob.getSegmentLength());
+        }
+    }
+}
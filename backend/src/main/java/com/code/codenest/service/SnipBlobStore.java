@@ -0,0 +1,221 @@
+package com.code.codenest.service;
+
+import com.code.codenest.model.ContentCodec;
+import com.code.codenest.model.SnipBlob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Content-addressed store of snip bodies in snip_blobs. Identical content is stored once
+ * and reference counted; {@link SnipExpiryService} releases the reference of every snip
+ * it expires and {@link #collect} deletes blobs nothing points at any more. Large content
+ * goes to the {@link SegmentBlobStore} when it is enabled.
+ */
+@Service
+public class SnipBlobStore {
+    private static final Logger logger = LoggerFactory.getLogger(SnipBlobStore.class);
+
+    // Existing content costs one small update; the body is only sent for new content
+    private static final String ACQUIRE_EXISTING_SQL =
+            "UPDATE snip_blobs SET ref_count = ref_count + 1 WHERE hash = ? RETURNING id";
+
+    // ON CONFLICT covers a concurrent insert of the same content
+    private static final String ACQUIRE_NEW_SQL = """
+            INSERT INTO snip_blobs (hash, data, ref_count) VALUES (?, ?, 1)
+            ON CONFLICT (hash) DO UPDATE SET ref_count = snip_blobs.ref_count + 1
+            RETURNING id
+            """;
+
+    private static final String ACQUIRE_NEW_IN_SEGMENT_SQL = """
+            INSERT INTO snip_blobs (hash, segment_id, segment_offset, segment_length, ref_count)
+            VALUES (?, ?, ?, ?, 1)
+            ON CONFLICT (hash) DO UPDATE SET ref_count = snip_blobs.ref_count + 1
+            RETURNING id
+            """;
+
+    // Bulk variants of the above for many distinct contents at once, one statement each. Rows
+    // are locked and inserted in hash order, so two imports sharing contents wait on each
+    // other instead of deadlocking.
+    private static final String ACQUIRE_EXISTING_BULK_SQL = """
+            WITH locked AS (
+                SELECT b.id, w.refs
+                FROM snip_blobs b JOIN unnest(?::bytea[], ?::int[]) AS w(hash, refs) ON b.hash = w.hash
+                ORDER BY b.hash
+                FOR UPDATE OF b
+            )
+            UPDATE snip_blobs b SET ref_count = b.ref_count + locked.refs
+            FROM locked
+            WHERE b.id = locked.id
+            RETURNING b.id, b.hash
+            """;
+
+    private static final String ACQUIRE_NEW_BULK_SQL = """
+            INSERT INTO snip_blobs (hash, data, ref_count)
+            SELECT hash, data, refs FROM unnest(?::bytea[], ?::bytea[], ?::int[]) AS w(hash, data, refs)
+            ORDER BY hash
+            ON CONFLICT (hash) DO UPDATE SET ref_count = snip_blobs.ref_count + EXCLUDED.ref_count
+            RETURNING id, hash
+            """;
+
+    // ref_count is checked again, so a blob acquired since its release survives
+    private static final String COLLECT_SQL = "DELETE FROM snip_blobs WHERE id = ANY (?) AND ref_count <= 0";
+    private static final String COLLECT_ALL_SQL = "DELETE FROM snip_blobs WHERE ref_count <= 0";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SegmentBlobStore segmentBlobStore;
+
+    @Autowired
+    public SnipBlobStore(JdbcTemplate jdbcTemplate, SegmentBlobStore segmentBlobStore) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.segmentBlobStore = segmentBlobStore;
+    }
+
+    /**
+     * Takes a reference on the blob holding {@code content}, creating it if needed.
+     *
+     * @return the blob id to store in snips.blob_id
+     */
+    public long acquire(String content) {
+        byte[] hash = SnipBlob.hash(content);
+
+        List<Long> existing = jdbcTemplate.queryForList(ACQUIRE_EXISTING_SQL, Long.class, hash);
+        if (!existing.isEmpty()) {
+            return existing.get(0);
+        }
+        byte[] utf8 = content.getBytes(StandardCharsets.UTF_8);
+        if (segmentBlobStore.accepts(utf8.length)) {
+            // If another request stored the same content first, the appended record is dead
+            // and is reclaimed by compaction
+            SegmentBlobStore.Pointer pointer = segmentBlobStore.append(hash, utf8);
+            return jdbcTemplate.queryForObject(ACQUIRE_NEW_IN_SEGMENT_SQL, Long.class,
+                    hash, pointer.segment(), pointer.offset(), pointer.length());
+        }
+        return jdbcTemplate.queryForObject(ACQUIRE_NEW_SQL, Long.class, hash, ContentCodec.encode(content));
+    }
+
+    /**
+     * Takes one reference per element of {@code contents}, like {@link #acquire} but with a
+     * constant number of statements for the whole list: one for content already stored and
+     * one for new content. Content for the segment store is still acquired one by one.
+     *
+     * @return the blob ids, in the order of {@code contents}
+     */
+    public List<Long> acquireAll(List<String> contents) {
+        // Distinct contents by hash, each with the number of references to take
+        Map<String, Pending> byHash = new LinkedHashMap<>();
+        List<String> hashes = new ArrayList<>(contents.size());
+        for (String content : contents) {
+            byte[] hash = SnipBlob.hash(content);
+            String key = HexFormat.of().formatHex(hash);
+            hashes.add(key);
+            byHash.computeIfAbsent(key, k -> new Pending(hash, content)).refs++;
+        }
+
+        Map<String, Long> ids = new HashMap<>();
+        List<Pending> remaining = new ArrayList<>();
+        for (Map.Entry<String, Pending> entry : byHash.entrySet()) {
+            Pending pending = entry.getValue();
+            if (segmentBlobStore.accepts(pending.content.getBytes(StandardCharsets.UTF_8).length)) {
+                long id = acquire(pending.content);
+                for (int i = 1; i < pending.refs; i++) {
+                    acquire(pending.content);
+                }
+                ids.put(entry.getKey(), id);
+            } else {
+                remaining.add(pending);
+            }
+        }
+        if (!remaining.isEmpty()) {
+            ids.putAll(acquireExisting(remaining));
+            List<Pending> created = remaining.stream()
+                    .filter(pending -> !ids.containsKey(HexFormat.of().formatHex(pending.hash)))
+                    .toList();
+            if (!created.isEmpty()) {
+                ids.putAll(acquireNew(created));
+            }
+        }
+        return hashes.stream().map(ids::get).toList();
+    }
+
+    private Map<String, Long> acquireExisting(List<Pending> pending) {
+        byte[][] hashes = pending.stream().map(p -> p.hash).toArray(byte[][]::new);
+        Integer[] refs = pending.stream().map(p -> p.refs).toArray(Integer[]::new);
+        return queryIdsByHash(ACQUIRE_EXISTING_BULK_SQL, con -> new Array[]{
+                con.createArrayOf("bytea", hashes), con.createArrayOf("integer", refs)});
+    }
+
+    private Map<String, Long> acquireNew(List<Pending> pending) {
+        byte[][] hashes = pending.stream().map(p -> p.hash).toArray(byte[][]::new);
+        byte[][] data = pending.stream().map(p -> ContentCodec.encode(p.content)).toArray(byte[][]::new);
+        Integer[] refs = pending.stream().map(p -> p.refs).toArray(Integer[]::new);
+        return queryIdsByHash(ACQUIRE_NEW_BULK_SQL, con -> new Array[]{
+                con.createArrayOf("bytea", hashes), con.createArrayOf("bytea", data), con.createArrayOf("integer", refs)});
+    }
+
+    private Map<String, Long> queryIdsByHash(String sql, ArrayParameters parameters) {
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            Array[] arrays = parameters.create(con);
+            for (int i = 0; i < arrays.length; i++) {
+                ps.setArray(i + 1, arrays[i]);
+            }
+            return ps;
+        }, rs -> {
+            ids.put(HexFormat.of().formatHex(rs.getBytes("hash")), rs.getLong("id"));
+        });
+        return ids;
+    }
+
+    /**
+     * Deletes those of the given blobs whose last reference has been released.
+     */
+    public int collect(Collection<Long> blobIds) {
+        if (blobIds.isEmpty()) {
+            return 0;
+        }
+        Long[] ids = blobIds.toArray(new Long[0]);
+        int deleted = jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(COLLECT_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            return ps;
+        });
+        if (deleted > 0) {
+            logger.debug("Collected {} unreferenced snip blobs", deleted);
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes every unreferenced blob; the backstop for releases whose {@link #collect} call
+     * did not happen.
+     */
+    public int collectAll() {
+        return jdbcTemplate.update(COLLECT_ALL_SQL);
+    }
+
+    private interface ArrayParameters {
+        Array[] create(Connection con) throws SQLException;
+    }
+
+    private static final class Pending {
+        final byte[] hash;
+        final String content;
+        int refs;
+
+        Pending(byte[] hash, String content) {
+            this.hash = hash;
+            this.content = content;
+        }
+    }
+}
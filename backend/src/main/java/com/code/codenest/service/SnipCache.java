@@ -0,0 +1,108 @@
+package com.code.codenest.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Size-bounded LRU read-through cache of snip payloads keyed by UUID, so a popular snip
+ * is read from Postgres once instead of on every view.
+ * <p>
+ * Entries are dropped when their TIME expiry passes (checked on read), when their VIEWS
+ * limit is reached, and whenever the expiry path calls {@link #evict}. Besides the entry
+ * count, the characters of content held by all entries together are bounded, evicting
+ * the least recently used entries first.
+ */
+@Component
+public class SnipCache {
+    private static final Logger logger = LoggerFactory.getLogger(SnipCache.class);
+
+    private final int maxEntries;
+    private final int maxContentLength;
+    private final long maxTotalContentLength;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Access order makes the first entry the least recently used one
+    private final LinkedHashMap<String, CachedSnip> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Characters of content held by all entries; guarded by lock
+    private long totalContentLength;
+
+    public SnipCache(@Value("${codenest.snip-cache.max-entries:1000}") int maxEntries,
+                     @Value("${codenest.snip-cache.max-content-length:262144}") int maxContentLength,
+                     @Value("${codenest.snip-cache.max-total-content-length:16777216}") long maxTotalContentLength) {
+        this.maxEntries = maxEntries;
+        this.maxContentLength = maxContentLength;
+        this.maxTotalContentLength = maxTotalContentLength;
+    }
+
+    /**
+     * Returns the cached snip, or null if it is absent or its TIME expiry has passed.
+     */
+    public CachedSnip get(String uuid) {
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            CachedSnip cached = entries.get(uuid);
+            if (cached == null) {
+                return null;
+            }
+            if (now >= cached.getExpiresAtMillis() || cached.isViewLimitReached()) {
+                remove(uuid);
+                logger.debug("Evicted expired snip {} from cache", uuid);
+                return null;
+            }
+            return cached;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(CachedSnip cached) {
+        // Stored length, so oversized content is rejected without being decoded
+        Integer contentLength = cached.getSnip().getContentLength();
+        if (contentLength != null && contentLength > maxContentLength) {
+            return;
+        }
+        lock.lock();
+        try {
+            remove(cached.getSnip().getUuid());
+            entries.put(cached.getSnip().getUuid(), cached);
+            totalContentLength += contentLength(cached);
+            // Least recently used first; the entry just added is the last one
+            Iterator<CachedSnip> eldest = entries.values().iterator();
+            while (entries.size() > maxEntries || totalContentLength > maxTotalContentLength) {
+                totalContentLength -= contentLength(eldest.next());
+                eldest.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void evict(String uuid) {
+        lock.lock();
+        try {
+            remove(uuid);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Callers hold the lock
+    private void remove(String uuid) {
+        CachedSnip removed = entries.remove(uuid);
+        if (removed != null) {
+            totalContentLength -= contentLength(removed);
+        }
+    }
+
+    private static long contentLength(CachedSnip cached) {
+        Integer length = cached.getSnip().getContentLength();
+        return length != null ? length : 0;
+    }
+}
@@ -0,0 +1,180 @@
+package com.code.codenest.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Marks expired snips as deleted in bulk, records their expiration logs, releases
+ * their content blobs and takes them out of the tag counts.
+ */
+@Service
+public class SnipExpiryService {
+    private static final Logger logger = LoggerFactory.getLogger(SnipExpiryService.class);
+
+    // One statement per batch: flag the due snips and drop their blob reference, search
+    // document and preview, so no part of the content outlives them; log each of them with
+    // the given reason, release one blob reference per expired snip and uncount it from its
+    // tags. %s is the query selecting the due rows as (id, blob_id), locked FOR UPDATE.
+    // Rows shared with imports are locked in the order SnipService.createAll takes them, so a
+    // sweep and an import wait on each other instead of deadlocking: blob rows first, by hash
+    // as SnipBlobStore.acquireAll does, then tag_counts rows by tag_id as TagDictionary's
+    // attach does. The count over locked_blobs only makes the tag locks wait for the blob ones.
+    private static final String EXPIRE_SQL_TEMPLATE = """
+            WITH due AS (
+                %s
+            ), expired AS (
+                UPDATE snips s SET is_deleted = true, blob_id = NULL, search_vector = NULL,
+                    preview = NULL, content_length = 0
+                FROM due WHERE s.id = due.id
+                RETURNING s.id, s.uuid, due.blob_id
+            ), logged AS (
+                INSERT INTO expiration_logs (snip_id, expired_at, expiration_reason)
+                SELECT id, ?, ? FROM expired
+            ), locked_blobs AS (
+                SELECT b.id FROM snip_blobs b
+                WHERE b.id IN (SELECT blob_id FROM expired)
+                ORDER BY b.hash
+                FOR UPDATE OF b
+            ), released AS (
+                UPDATE snip_blobs b SET ref_count = b.ref_count - r.refs
+                FROM (SELECT blob_id, count(*) AS refs FROM expired
+                      WHERE blob_id IS NOT NULL GROUP BY blob_id) r
+                JOIN locked_blobs l ON l.id = r.blob_id
+                WHERE b.id = r.blob_id
+            ), locked_counts AS (
+                SELECT c.tag_id FROM tag_counts c
+                WHERE c.tag_id IN (SELECT st.tag_id FROM expired JOIN snip_tags st ON st.snip_id = expired.id)
+                  AND (SELECT count(*) FROM locked_blobs) >= 0
+                ORDER BY c.tag_id
+                FOR UPDATE OF c
+            ), uncounted AS (
+                UPDATE tag_counts c SET snip_count = c.snip_count - r.snips
+                FROM (SELECT st.tag_id, count(*) AS snips FROM expired
+                      JOIN snip_tags st ON st.snip_id = expired.id GROUP BY st.tag_id) r
+                JOIN locked_counts l ON l.tag_id = r.tag_id
+                WHERE c.tag_id = r.tag_id
+            )
+            SELECT id, uuid, blob_id FROM expired
+            """;
+
+    // Oldest deadline first, skipping rows another instance is already sweeping
+    private static final String EXPIRE_DUE_SQL = EXPIRE_SQL_TEMPLATE.formatted("""
+            SELECT id, blob_id FROM snips
+                WHERE is_deleted = false AND expires_at <= ?
+                ORDER BY expires_at
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED""");
+
+    private static final String EXPIRE_BY_ID_SQL = EXPIRE_SQL_TEMPLATE.formatted("""
+            SELECT id, blob_id FROM snips
+                WHERE id = ANY (?) AND is_deleted = false AND expires_at <= ?
+                FOR UPDATE""");
+
+    private static final String EXPIRE_VIEWS_SQL = EXPIRE_SQL_TEMPLATE.formatted("""
+            SELECT id, blob_id FROM snips
+                WHERE id = ? AND is_deleted = false
+                FOR UPDATE""");
+
+    private static final String BACKFILL_EXPIRES_AT_SQL = """
+            UPDATE snips SET expires_at = created_at + expiration_value * INTERVAL '1 second'
+            WHERE expiration_type = 'TIME' AND expiration_value > 0 AND expires_at IS NULL
+            """;
+
+    private static final RowMapper<ExpiredSnip> EXPIRED_SNIP_MAPPER =
+            (rs, rowNum) -> new ExpiredSnip(rs.getLong("id"), rs.getString("uuid"), rs.getObject("blob_id", Long.class));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SnipCache snipCache;
+    private final SnipBlobStore snipBlobStore;
+
+    @Autowired
+    public SnipExpiryService(JdbcTemplate jdbcTemplate, SnipCache snipCache, SnipBlobStore snipBlobStore) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snipCache = snipCache;
+        this.snipBlobStore = snipBlobStore;
+    }
+
+    /**
+     * Expires up to {@code batchSize} snips whose deadline is at or before {@code now}.
+     *
+     * @return the number of snips expired by this call
+     */
+    public int expireDue(LocalDateTime now, int batchSize) {
+        Timestamp nowTs = Timestamp.valueOf(now);
+        List<ExpiredSnip> expired = jdbcTemplate.query(EXPIRE_DUE_SQL, EXPIRED_SNIP_MAPPER,
+                nowTs, batchSize, nowTs, "TIME");
+        return release(expired, "time");
+    }
+
+    /**
+     * Expires those of the given snips that are still live and due at {@code now}; used by
+     * callers that already know which snips are due, so no index scan is needed.
+     *
+     * @return the number of snips expired by this call
+     */
+    public int expire(Collection<Long> snipIds, LocalDateTime now) {
+        if (snipIds.isEmpty()) {
+            return 0;
+        }
+        Long[] ids = snipIds.toArray(new Long[0]);
+        Timestamp nowTs = Timestamp.valueOf(now);
+        List<ExpiredSnip> expired = jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(EXPIRE_BY_ID_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            ps.setTimestamp(2, nowTs);
+            ps.setTimestamp(3, nowTs);
+            ps.setString(4, "TIME");
+            return ps;
+        }, EXPIRED_SNIP_MAPPER);
+        return release(expired, "time");
+    }
+
+    /**
+     * Expires a VIEWS-limited snip whose last view has just been consumed.
+     *
+     * @return true if this call expired the snip
+     */
+    public boolean expireByViews(Long snipId, LocalDateTime now) {
+        List<ExpiredSnip> expired = jdbcTemplate.query(EXPIRE_VIEWS_SQL, EXPIRED_SNIP_MAPPER,
+                snipId, Timestamp.valueOf(now), "VIEWS");
+        return release(expired, "views") > 0;
+    }
+
+    private int release(List<ExpiredSnip> expired, String reason) {
+        Set<Long> blobIds = new HashSet<>();
+        for (ExpiredSnip snip : expired) {
+            snipCache.evict(snip.uuid());
+            if (snip.blobId() != null) {
+                blobIds.add(snip.blobId());
+            }
+        }
+        // The statement above released the references; delete the blobs left without any
+        snipBlobStore.collect(blobIds);
+        if (!expired.isEmpty()) {
+            logger.info("Expired {} snips by {}", expired.size(), reason);
+        }
+        return expired.size();
+    }
+
+    /**
+     * Fills expires_at for TIME-limited snips created before the column existed.
+     */
+    public int backfillExpiresAt() {
+        return jdbcTemplate.update(BACKFILL_EXPIRES_AT_SQL);
+    }
+
+    record ExpiredSnip(long id, String uuid, Long blobId) {
+    }
+}
@@ -0,0 +1,122 @@
+package com.code.codenest.service;
+
+import com.code.codenest.model.ContentCodec;
+import com.code.codenest.model.User;
+import com.code.codenest.repository.SnipRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a user's live snips, with content and tags, as newline-delimited JSON in the
+ * format {@link SnipImporter} reads back. Snips are read a page at a time by keyset over
+ * the id, each page in one short statement, and the page is written out only once its
+ * connection is back in the pool, so a slow download never holds a connection and memory
+ * does not grow with the number of snips.
+ */
+@Component
+public class SnipExporter {
+    static final int PAGE_SIZE = 100;
+
+    // Oldest first, so a re-import recreates the snips in their original order. Segment
+    // content is only located here and read from the mapping while the page is written.
+    static final String EXPORT_SQL = """
+            SELECT s.id, s.uuid, s.title, s.expiration_type, s.expiration_value, s.created_at, s.view_count,
+                   b.data, b.segment_id, b.segment_offset, b.segment_length,
+                   ARRAY(SELECT t.name FROM snip_tags st JOIN tags t ON t.id = st.tag_id
+                         WHERE st.snip_id = s.id ORDER BY st.id) AS tags
+            FROM snips s JOIN snip_blobs b ON b.id = s.blob_id
+            WHERE s.user_id = ? AND s.id > ? AND %s
+            ORDER BY s.id
+            LIMIT ?
+            """.formatted(SnipRepository.LIVE_SQL);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SegmentBlobStore segmentBlobStore;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public SnipExporter(JdbcTemplate jdbcTemplate,
+                        SegmentBlobStore segmentBlobStore,
+                        ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.segmentBlobStore = segmentBlobStore;
+        this.objectMapper = objectMapper;
+    }
+
+    public StreamingResponseBody export(User user) {
+        // One point in time for the whole export, so a snip expiring midway does not come and go
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                // The servlet container owns the response stream
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                // Lines are terminated by writeLine instead of separated by a space
+                generator.setRootValueSeparator(null);
+                long after = 0;
+                List<ExportedSnip> page;
+                do {
+                    page = jdbcTemplate.query(EXPORT_SQL, ROW_MAPPER, user.getId(), after, now, PAGE_SIZE);
+                    for (ExportedSnip snip : page) {
+                        writeLine(generator, snip);
+                    }
+                    generator.flush();
+                    if (!page.isEmpty()) {
+                        after = page.get(page.size() - 1).id();
+                    }
+                } while (page.size() == PAGE_SIZE);
+            }
+        };
+    }
+
+    private void writeLine(JsonGenerator generator, ExportedSnip snip) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("uuid", snip.uuid());
+        generator.writeStringField("title", snip.title());
+        generator.writeStringField("content", snip.data() != null
+                ? ContentCodec.decode(snip.data())
+                : segmentBlobStore.readString(snip.pointer()));
+        generator.writeArrayFieldStart("tags");
+        for (String tag : snip.tags()) {
+            generator.writeString(tag);
+        }
+        generator.writeEndArray();
+        generator.writeStringField("expirationType", snip.expirationType());
+        generator.writeNumberField("expirationValue", snip.expirationValue());
+        generator.writeStringField("createdAt", snip.createdAt() != null ? snip.createdAt().toString() : null);
+        generator.writeNumberField("viewCount", snip.viewCount());
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private static final RowMapper<ExportedSnip> ROW_MAPPER = (rs, rowNum) -> {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        byte[] data = rs.getBytes("data");
+        SegmentBlobStore.Pointer pointer = data != null ? null : new SegmentBlobStore.Pointer(
+                rs.getInt("segment_id"), rs.getLong("segment_offset"), rs.getInt("segment_length"));
+        List<String> tags = new ArrayList<>();
+        for (Object tag : (Object[]) rs.getArray("tags").getArray()) {
+            tags.add((String) tag);
+        }
+        return new ExportedSnip(rs.getLong("id"), rs.getString("uuid"), rs.getString("title"),
+                rs.getString("expiration_type"), rs.getLong("expiration_value"),
+                createdAt != null ? createdAt.toLocalDateTime() : null, rs.getLong("view_count"),
+                data, pointer, tags);
+    };
+
+    // A row as read; data is the encoded content, or null when it lives at pointer
+    private record ExportedSnip(long id, String uuid, String title, String expirationType, long expirationValue,
+                                LocalDateTime createdAt, long viewCount, byte[] data,
+                                SegmentBlobStore.Pointer pointer, List<String> tags) {
+    }
+}
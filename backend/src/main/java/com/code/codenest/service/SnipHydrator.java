@@ -0,0 +1,68 @@
+package com.code.codenest.service;
+
+import com.code.codenest.dto.SnipSummary;
+import com.code.codenest.dto.SnipSummaryResponse;
+import com.code.codenest.dto.UserResponse;
+import com.code.codenest.model.User;
+import com.code.codenest.repository.SnipTagRepository;
+import com.code.codenest.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Loads authors and tags for a whole page of snips with one IN-list query each,
+ * instead of one user lookup and one tag lookup per snip.
+ */
+@Component
+public class SnipHydrator {
+
+    private final UserRepository userRepository;
+    private final SnipTagRepository snipTagRepository;
+
+    @Autowired
+    public SnipHydrator(UserRepository userRepository, SnipTagRepository snipTagRepository) {
+        this.userRepository = userRepository;
+        this.snipTagRepository = snipTagRepository;
+    }
+
+    public Map<Long, User> loadUsers(Collection<Long> userIds) {
+        Set<Long> ids = userIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+    }
+
+    public Map<Long, List<String>> loadTags(Collection<Long> snipIds) {
+        if (snipIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, List<String>> tagsBySnip = new HashMap<>();
+        for (SnipTagRepository.SnipTagName row : snipTagRepository.findTagNamesBySnipIds(snipIds)) {
+            tagsBySnip.computeIfAbsent(row.getSnipId(), id -> new ArrayList<>()).add(row.getTagName());
+        }
+        return tagsBySnip;
+    }
+
+    public List<SnipSummaryResponse> toSummaryResponses(List<SnipSummary> snips) {
+        if (snips.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, User> authors = loadUsers(snips.stream().map(SnipSummary::getUserId).toList());
+        Map<Long, List<String>> tags = loadTags(snips.stream().map(SnipSummary::getId).toList());
+
+        Map<Long, UserResponse> authorResponses = new HashMap<>();
+        List<SnipSummaryResponse> responses = new ArrayList<>(snips.size());
+        for (SnipSummary snip : snips) {
+            UserResponse author = authorResponses.computeIfAbsent(snip.getUserId(),
+                    id -> new UserResponse(authors.getOrDefault(id, User.UNKNOWN)));
+            responses.add(new SnipSummaryResponse(snip, author, tags.getOrDefault(snip.getId(), Collections.emptyList())));
+        }
+        return responses;
+    }
+}
@@ -0,0 +1,140 @@
+package com.code.codenest.service;
+
+import com.code.codenest.dto.SnipCreateRequest;
+import com.code.codenest.model.Snip;
+import com.code.codenest.model.User;
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Imports snips from newline-delimited JSON, one {@link SnipCreateRequest} per line. Lines
+ * are parsed one at a time and written through {@link SnipService#createAll} in batches,
+ * so memory stays bounded by the batch limits whatever the size of the upload.
+ * <p>
+ * Each batch commits on its own. Lines that fail validation are skipped and reported;
+ * malformed JSON stops the import, keeping the batches committed before it.
+ */
+@Service
+public class SnipImporter {
+    private static final Logger logger = LoggerFactory.getLogger(SnipImporter.class);
+
+    static final int MAX_REPORTED_ERRORS = 100;
+    // Matches the VARCHAR(255) columns
+    static final int MAX_NAME_LENGTH = 255;
+
+    private final SnipService snipService;
+    private final ExpiryScheduler expiryScheduler;
+    private final ObjectReader lineReader;
+    private final int batchSize;
+    private final long batchChars;
+
+    @Autowired
+    public SnipImporter(SnipService snipService,
+                        ExpiryScheduler expiryScheduler,
+                        ObjectMapper objectMapper,
+                        @Value("${codenest.import.batch-size:500}") int batchSize,
+                        @Value("${codenest.import.batch-chars:8388608}") long batchChars) {
+        this.snipService = snipService;
+        this.expiryScheduler = expiryScheduler;
+        // Exported lines carry extra fields (uuid, createdAt, viewCount) that are not imported
+        this.lineReader = objectMapper.readerFor(SnipCreateRequest.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.batchSize = batchSize;
+        this.batchChars = batchChars;
+    }
+
+    public Result importNdjson(InputStream in, User author) {
+        int line = 0;
+        int imported = 0;
+        int rejected = 0;
+        List<String> errors = new ArrayList<>();
+        List<SnipCreateRequest> batch = new ArrayList<>(batchSize);
+        long pendingChars = 0;
+
+        try (MappingIterator<SnipCreateRequest> lines = lineReader.readValues(in)) {
+            while (lines.hasNextValue()) {
+                SnipCreateRequest request = lines.nextValue();
+                line = lines.getCurrentLocation().getLineNr();
+                String error = validate(request);
+                if (error != null) {
+                    rejected++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add("Line " + line + ": " + error);
+                    }
+                    continue;
+                }
+                batch.add(request);
+                pendingChars += request.getContent().length();
+                if (batch.size() >= batchSize || pendingChars >= batchChars) {
+                    imported += write(batch, author);
+                    batch.clear();
+                    pendingChars = 0;
+                }
+            }
+        } catch (JacksonException e) {
+            imported += write(batch, author);
+            logger.warn("Snip import by user {} stopped at malformed JSON after line {}", author.getId(), line);
+            return new Result(imported, rejected, errors, "Malformed JSON after line " + line + ": " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        imported += write(batch, author);
+        logger.info("Imported {} snips for user {} ({} rejected)", imported, author.getId(), rejected);
+        return new Result(imported, rejected, errors, null);
+    }
+
+    private int write(List<SnipCreateRequest> batch, User author) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<Snip> saved = snipService.createAll(batch, author);
+        // Committed; only now may the snips expire
+        saved.forEach(expiryScheduler::schedule);
+        return saved.size();
+    }
+
+    // The checks createSnippet and the schema would otherwise fail the whole batch on
+    private static String validate(SnipCreateRequest request) {
+        if (request == null) {
+            return "Expected a JSON object";
+        }
+        if (request.getContent() == null) {
+            return "Content is required";
+        }
+        if (request.getTitle() != null && request.getTitle().length() > MAX_NAME_LENGTH) {
+            return "Title is longer than " + MAX_NAME_LENGTH + " characters";
+        }
+        String type = request.getExpirationType();
+        if (type != null && !type.isEmpty() && !"TIME".equals(type) && !"VIEWS".equals(type)) {
+            return "Unknown expirationType " + type;
+        }
+        if (request.getExpirationValue() < 0) {
+            return "expirationValue must not be negative";
+        }
+        if (request.getTags() != null && request.getTags().stream()
+                .anyMatch(tag -> tag != null && tag.trim().length() > MAX_NAME_LENGTH)) {
+            return "Tag is longer than " + MAX_NAME_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    /**
+     * Outcome of an import; {@code failure} is set when the import stopped early.
+     */
+    public record Result(int imported, int rejected, List<String> errors, String failure) {
+    }
+}
@@ -0,0 +1,177 @@
+package com.code.codenest.service;
+
+import com.code.codenest.dto.GroupSnipSummary;
+import com.code.codenest.dto.SnipSummary;
+import com.code.codenest.dto.SnipSummaryResponse;
+import com.code.codenest.dto.UserResponse;
+import com.code.codenest.model.User;
+import com.code.codenest.repository.GroupSnipRepository;
+import com.code.codenest.repository.SnipRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Writes snippet lists as {"success": true, "snippets": [...]} one chunk at a time, so the
+ * heap needed no longer grows with the number of snips.
+ * <p>
+ * Rows are content-free summaries. Each chunk, with its authors and tags, is read by keyset
+ * after the last row of the previous one in its own short transaction, and is only written
+ * out once the connection is back in the pool: a slow client never holds a connection.
+ */
+@Component
+public class SnipListStreamer {
+    static final int CHUNK_SIZE = 100;
+    private static final Pageable CHUNK = PageRequest.of(0, CHUNK_SIZE);
+
+    private final SnipRepository snipRepository;
+    private final GroupSnipRepository groupSnipRepository;
+    private final SnipHydrator snipHydrator;
+    private final ObjectMapper objectMapper;
+    // Flushed once per chunk rather than after every row
+    private final ObjectWriter rowWriter;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Autowired
+    public SnipListStreamer(SnipRepository snipRepository,
+                            GroupSnipRepository groupSnipRepository,
+                            SnipHydrator snipHydrator,
+                            ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager) {
+        this.snipRepository = snipRepository;
+        this.groupSnipRepository = groupSnipRepository;
+        this.snipHydrator = snipHydrator;
+        this.objectMapper = objectMapper;
+        this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * All snips owned by {@code user}, newest first, including expired ones.
+     */
+    public StreamingResponseBody userSnippets(User user) {
+        UserResponse author = new UserResponse(user); // Author is always the current user
+        return out -> write(out, (SnipSummary after) -> snipRepository.findSummariesByUserIdBefore(user.getId(),
+                after == null ? Long.MAX_VALUE : after.getId(), CHUNK), chunk -> {
+            Map<Long, List<String>> tagsBySnip = snipHydrator.loadTags(chunk.stream().map(SnipSummary::getId).toList());
+            List<Object> responses = new ArrayList<>(chunk.size());
+            for (SnipSummary snip : chunk) {
+                responses.add(new SnipSummaryResponse(snip, author, tagsBySnip.getOrDefault(snip.getId(), Collections.emptyList())));
+            }
+            return responses;
+        });
+    }
+
+    /**
+     * Live snips shared with the group, most recently shared first.
+     */
+    public StreamingResponseBody groupSnippets(Long groupId) {
+        LocalDateTime now = LocalDateTime.now();
+        return out -> write(out, (GroupSnipSummary after) -> after == null
+                ? groupSnipRepository.findLiveSummariesByGroupId(groupId, now, CHUNK)
+                : groupSnipRepository.findLiveSummariesByGroupIdBefore(groupId, after.getSharedAt(), after.getId(), now, CHUNK), chunk -> {
+            List<Long> userIds = new ArrayList<>();
+            List<Long> snipIds = new ArrayList<>();
+            for (GroupSnipSummary groupSnip : chunk) {
+                userIds.add(groupSnip.getUserId());
+                userIds.add(groupSnip.getSharedById());
+                snipIds.add(groupSnip.getSnipId());
+            }
+            Map<Long, User> usersById = snipHydrator.loadUsers(userIds);
+            Map<Long, List<String>> tagsBySnip = snipHydrator.loadTags(snipIds);
+
+            List<Object> responses = new ArrayList<>(chunk.size());
+            for (GroupSnipSummary groupSnip : chunk) {
+                responses.add(toGroupSnippetResponse(groupSnip, usersById, tagsBySnip));
+            }
+            return responses;
+        });
+    }
+
+    private Map<String, Object> toGroupSnippetResponse(GroupSnipSummary groupSnip, Map<Long, User> usersById,
+                                                       Map<Long, List<String>> tagsBySnip) {
+        User author = usersById.getOrDefault(groupSnip.getUserId(), User.UNKNOWN);
+        User sharer = usersById.getOrDefault(groupSnip.getSharedById(), User.UNKNOWN);
+
+        Map<String, Object> snippetResponse = new HashMap<>();
+        snippetResponse.put("id", groupSnip.getSnipId());
+        snippetResponse.put("uuid", groupSnip.getUuid());
+        snippetResponse.put("title", groupSnip.getTitle() != null ? groupSnip.getTitle() : "Untitled Snippet");
+        snippetResponse.put("createdAt", groupSnip.getCreatedAt().toString());
+
+        Map<String, Object> authorMap = new HashMap<>();
+        authorMap.put("id", author.getId());
+        authorMap.put("uuid", author.getUuid());
+        authorMap.put("username", author.getUsername());
+
+        Map<String, Object> sharerMap = new HashMap<>();
+        sharerMap.put("id", sharer.getId());
+        sharerMap.put("uuid", sharer.getUuid());
+        sharerMap.put("username", sharer.getUsername());
+
+        snippetResponse.put("author", authorMap);
+        snippetResponse.put("sharedBy", sharerMap);
+        snippetResponse.put("sharedAt", groupSnip.getSharedAt().toString());
+        snippetResponse.put("tags", tagsBySnip.getOrDefault(groupSnip.getSnipId(), Collections.emptyList()));
+        return snippetResponse;
+    }
+
+    /**
+     * @param chunkAfter  reads the chunk following the given row, or the first chunk for null
+     * @param toResponses hydrates a chunk into the objects written for it
+     */
+    private <T> void write(OutputStream out, Function<T, List<T>> chunkAfter,
+                           Function<List<T>, List<Object>> toResponses) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            // The servlet container owns the response stream
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeBooleanField("success", true);
+            generator.writeArrayFieldStart("snippets");
+
+            T last = null;
+            int read;
+            do {
+                T after = last;
+                Chunk<T> chunk = readOnlyTransaction.execute(status -> {
+                    List<T> rows = chunkAfter.apply(after);
+                    return new Chunk<>(rows, toResponses.apply(rows));
+                });
+                // Written after the commit, with no connection held while the client reads
+                writeChunk(generator, chunk.responses());
+                read = chunk.rows().size();
+                if (read > 0) {
+                    last = chunk.rows().get(read - 1);
+                }
+            } while (read == CHUNK_SIZE);
+
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    private void writeChunk(JsonGenerator generator, List<Object> responses) throws IOException {
+        for (Object response : responses) {
+            rowWriter.writeValue(generator, response);
+        }
+        generator.flush();
+    }
+
+    private record Chunk<T>(List<T> rows, List<Object> responses) {
+    }
+}
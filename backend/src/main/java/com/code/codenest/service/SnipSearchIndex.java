@@ -0,0 +1,193 @@
+package com.code.codenest.service;
+
+import com.code.codenest.model.ContentCodec;
+import com.code.codenest.repository.SnipRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Full-text search over live snips, backed by snips.search_vector and its GIN index.
+ * The vector is written here on create, from the plain content the blob store only keeps
+ * encoded, and cleared by {@link SnipExpiryService} when a snip expires.
+ * <p>
+ * Uses the 'simple' configuration: no stemming or stop words, so identifiers, keywords
+ * and error messages match as typed.
+ */
+@Service
+public class SnipSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(SnipSearchIndex.class);
+
+    // Past this much content the vector would only grow: Postgres caps tsvector positions
+    // at 16383 and the whole value at 1 MB
+    static final int MAX_INDEXED_CHARS = 100_000;
+    private static final int BACKFILL_BATCH_SIZE = 200;
+
+    private static final String INDEX_SQL = """
+            UPDATE snips SET search_vector =
+                setweight(to_tsvector('simple', ?), 'A') ||
+                setweight(to_tsvector('simple', ?), 'B') ||
+                setweight(to_tsvector('simple', ?), 'C')
+            WHERE id = ?
+            """;
+
+    // Ranks every live match and returns a page of them by (rank, id) descending; %s is the
+    // keyset condition. Tags are ANDed: a snip must carry all of them.
+    private static final String SEARCH_SQL_TEMPLATE = """
+            SELECT id, rank FROM (
+                SELECT s.id, ts_rank(s.search_vector, query)::float8 AS rank
+                FROM snips s, websearch_to_tsquery('simple', ?) query
+                WHERE s.search_vector @@ query
+                  AND %s
+                  AND NOT EXISTS (
+                      SELECT 1 FROM unnest(?::text[]) AS wanted(name)
+                      WHERE NOT EXISTS (
+                          SELECT 1 FROM snip_tags st JOIN tags t ON t.id = st.tag_id
+                          WHERE st.snip_id = s.id AND t.name = wanted.name))
+            ) ranked
+            %%s
+            ORDER BY rank DESC, id DESC
+            LIMIT ?
+            """.formatted(SnipRepository.LIVE_SQL);
+
+    private static final String SEARCH_SQL = SEARCH_SQL_TEMPLATE.formatted("");
+    private static final String SEARCH_AFTER_SQL = SEARCH_SQL_TEMPLATE.formatted("WHERE (rank, id) < (?, ?)");
+
+    // Live snips not indexed yet, in id order from the given id
+    private static final String UNINDEXED_SQL = """
+            SELECT s.id, s.title, b.data, b.segment_id, b.segment_offset, b.segment_length,
+                   (SELECT string_agg(t.name, ' ') FROM snip_tags st JOIN tags t ON t.id = st.tag_id
+                    WHERE st.snip_id = s.id) AS tags
+            FROM snips s JOIN snip_blobs b ON b.id = s.blob_id
+            WHERE s.search_vector IS NULL AND s.is_deleted = false AND s.id > ?
+            ORDER BY s.id
+            LIMIT ?
+            """;
+
+    private static final RowMapper<Hit> HIT_MAPPER = (rs, rowNum) -> new Hit(rs.getLong("id"), rs.getDouble("rank"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SegmentBlobStore segmentBlobStore;
+
+    @Autowired
+    public SnipSearchIndex(JdbcTemplate jdbcTemplate, SegmentBlobStore segmentBlobStore) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.segmentBlobStore = segmentBlobStore;
+    }
+
+    /**
+     * Writes the search document of a snip.
+     */
+    public void index(long snipId, String title, String content, Collection<String> tags) {
+        jdbcTemplate.update(INDEX_SQL, document(snipId, title, content, tags));
+    }
+
+    /**
+     * Writes the search documents of many snips in one JDBC batch.
+     */
+    public void indexAll(List<Document> documents) {
+        jdbcTemplate.batchUpdate(INDEX_SQL, documents.stream()
+                .map(doc -> document(doc.snipId(), doc.title(), doc.content(), doc.tags()))
+                .toList());
+    }
+
+    /**
+     * Returns up to {@code limit} live snips matching {@code query} and carrying all of
+     * {@code tags}, best match first, starting after {@code after} when given.
+     *
+     * @param query web-search syntax: words, "quoted phrases", OR and -excluded words
+     */
+    public List<Hit> search(String query, Collection<String> tags, Hit after, LocalDateTime now, int limit) {
+        String[] tagNames = tags.toArray(new String[0]);
+        Timestamp nowTs = Timestamp.valueOf(now);
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(after == null ? SEARCH_SQL : SEARCH_AFTER_SQL);
+            int i = 0;
+            ps.setString(++i, query);
+            ps.setTimestamp(++i, nowTs);
+            ps.setArray(++i, con.createArrayOf("text", tagNames));
+            if (after != null) {
+                ps.setDouble(++i, after.rank());
+                ps.setLong(++i, after.id());
+            }
+            ps.setInt(++i, limit);
+            return ps;
+        }, HIT_MAPPER);
+    }
+
+    /**
+     * Indexes live snips created before the search_vector column existed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long lastId = 0;
+        int indexed = 0;
+        try {
+            List<Object[]> batch;
+            do {
+                batch = jdbcTemplate.query(UNINDEXED_SQL, (rs, rowNum) -> {
+                    byte[] data = rs.getBytes("data");
+                    String content = data != null ? ContentCodec.decode(data)
+                            : segmentBlobStore.readString(new SegmentBlobStore.Pointer(rs.getInt("segment_id"),
+                                    rs.getLong("segment_offset"), rs.getInt("segment_length")));
+                    String tags = rs.getString("tags");
+                    return document(rs.getLong("id"), rs.getString("title"), content, tags == null ? List.of() : List.of(tags));
+                }, lastId, BACKFILL_BATCH_SIZE);
+                if (!batch.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INDEX_SQL, batch);
+                    lastId = (Long) batch.get(batch.size() - 1)[3];
+                    indexed += batch.size();
+                }
+            } while (batch.size() == BACKFILL_BATCH_SIZE);
+        } catch (DataAccessException e) {
+            logger.error("Search index backfill stopped after {} snips, will resume on the next start", indexed, e);
+            return;
+        }
+        if (indexed > 0) {
+            logger.info("Indexed {} existing snips for search", indexed);
+        }
+    }
+
+    // Parameters of INDEX_SQL
+    private static Object[] document(long snipId, String title, String content, Collection<String> tags) {
+        return new Object[]{
+                title == null ? "" : title,
+                String.join(" ", tags),
+                truncate(content == null ? "" : content),
+                snipId
+        };
+    }
+
+    private static String truncate(String content) {
+        if (content.length() <= MAX_INDEXED_CHARS) {
+            return content;
+        }
+        // Never split a surrogate pair
+        int end = Character.isHighSurrogate(content.charAt(MAX_INDEXED_CHARS - 1)) ? MAX_INDEXED_CHARS - 1 : MAX_INDEXED_CHARS;
+        return content.substring(0, end);
+    }
+
+    /**
+     * What gets indexed for a snip.
+     */
+    public record Document(long snipId, String title, String content, Collection<String> tags) {
+    }
+
+    /**
+     * A matching snip and its rank; also the keyset position of the next page.
+     */
+    public record Hit(long id, double rank) {
+    }
+}
@@ -0,0 +1,100 @@
+package com.code.codenest.service;
+
+import com.code.codenest.dto.SnipCreateRequest;
+import com.code.codenest.model.Snip;
+import com.code.codenest.model.User;
+import com.code.codenest.repository.SnipRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write path for new snips: the blob reference, the snip row, its tags and its search
+ * document are written in one transaction, so creating a snip costs a single commit and
+ * a failure leaves nothing half-created behind.
+ */
+@Service
+public class SnipService {
+
+    private final SnipRepository snipRepository;
+    private final SnipBlobStore snipBlobStore;
+    private final TagDictionary tagDictionary;
+    private final SnipSearchIndex snipSearchIndex;
+
+    @Autowired
+    public SnipService(SnipRepository snipRepository,
+                       SnipBlobStore snipBlobStore,
+                       TagDictionary tagDictionary,
+                       SnipSearchIndex snipSearchIndex) {
+        this.snipRepository = snipRepository;
+        this.snipBlobStore = snipBlobStore;
+        this.tagDictionary = tagDictionary;
+        this.snipSearchIndex = snipSearchIndex;
+    }
+
+    /**
+     * Creates a snip owned by {@code author}. The caller schedules its expiry once this
+     * returns, i.e. after the commit.
+     */
+    @Transactional
+    public Snip create(SnipCreateRequest request, User author) {
+        Snip snip = newSnip(request, author);
+        // Identical content already stored is only referenced, not written again
+        snip.setBlobId(snipBlobStore.acquire(snip.getContent()));
+
+        // Flushed right away: the tags and search document below are written over JDBC and
+        // need the row to exist
+        Snip saved = snipRepository.saveAndFlush(snip);
+
+        // Unknown tags are created in one upsert and all links written in one insert
+        List<String> tagNames = TagDictionary.normalize(request.getTags());
+        tagDictionary.attach(saved.getId(), tagNames);
+        snipSearchIndex.index(saved.getId(), saved.getTitle(), snip.getContent(), tagNames);
+        return saved;
+    }
+
+    /**
+     * Creates many snips owned by {@code author} in one transaction with a constant number
+     * of statements per call: the snip rows go out as JDBC batches (ids come from the pooled
+     * sequence, so none is fetched per row) and blobs, tags and search documents are
+     * written in bulk. As with {@link #create}, the caller schedules expiries afterwards.
+     */
+    @Transactional
+    public List<Snip> createAll(List<SnipCreateRequest> requests, User author) {
+        List<Long> blobIds = snipBlobStore.acquireAll(requests.stream().map(SnipCreateRequest::getContent).toList());
+        List<Snip> snips = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            Snip snip = newSnip(requests.get(i), author);
+            snip.setBlobId(blobIds.get(i));
+            snips.add(snip);
+        }
+        List<Snip> saved = snipRepository.saveAllAndFlush(snips);
+
+        Map<Long, List<String>> tagsBySnip = new LinkedHashMap<>();
+        List<SnipSearchIndex.Document> documents = new ArrayList<>(saved.size());
+        for (int i = 0; i < saved.size(); i++) {
+            Snip snip = saved.get(i);
+            List<String> tagNames = TagDictionary.normalize(requests.get(i).getTags());
+            tagsBySnip.put(snip.getId(), tagNames);
+            documents.add(new SnipSearchIndex.Document(snip.getId(), snip.getTitle(), snip.getContent(), tagNames));
+        }
+        tagDictionary.attachAll(tagsBySnip);
+        snipSearchIndex.indexAll(documents);
+        return saved;
+    }
+
+    private static Snip newSnip(SnipCreateRequest request, User author) {
+        Snip snip = new Snip();
+        snip.setTitle(request.getTitle());
+        snip.setContent(request.getContent());
+        snip.setUserId(author.getId());
+        snip.setExpirationType(request.getExpirationType()); // Set type (can be null)
+        snip.setExpirationValue(request.getExpirationValue()); // Set value (can be 0)
+        return snip;
+    }
+}
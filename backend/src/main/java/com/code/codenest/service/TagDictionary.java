@@ -0,0 +1,250 @@
+package com.code.codenest.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded, least-recently-used cache of tag name to tag id, so tagging a snip does not
+ * look up each tag by name. Tags are never renamed or deleted, so cached ids stay valid.
+ * Unknown tags are created together in one upsert and a snip's tags are linked and
+ * counted in tag_counts in one statement, whatever the number of tags.
+ */
+@Service
+public class TagDictionary {
+    private static final Logger logger = LoggerFactory.getLogger(TagDictionary.class);
+
+    // Concurrent creators of the same name both succeed; existing rows are read from the
+    // statement's snapshot, so the two halves never return the same tag twice. Names are
+    // inserted in sorted order, so two transactions creating overlapping tags wait on each
+    // other's new rows in the same order instead of deadlocking.
+    private static final String UPSERT_SQL = """
+            WITH wanted(name) AS (
+                SELECT DISTINCT unnest(?::text[])
+            ), inserted AS (
+                INSERT INTO tags (name) SELECT name FROM wanted ORDER BY name
+                ON CONFLICT (name) DO NOTHING
+                RETURNING id, name
+            )
+            SELECT id, name FROM inserted
+            UNION ALL
+            SELECT t.id, t.name FROM tags t JOIN wanted w ON w.name = t.name
+            """;
+
+    // Links the (snip_id, tag_id) pairs, copying the snip's created_at onto the link, and
+    // counts each newly linked snip under its tag. The tag_counts rows stay locked until
+    // commit, so they are upserted in tag_id order.
+    private static final String ATTACH_SQL = """
+            WITH linked AS (
+                INSERT INTO snip_tags (snip_id, tag_id, snip_created_at)
+                SELECT l.snip_id, l.tag_id, s.created_at
+                FROM unnest(?::bigint[], ?::bigint[]) AS l(snip_id, tag_id)
+                JOIN snips s ON s.id = l.snip_id
+                ON CONFLICT (snip_id, tag_id) DO NOTHING
+                RETURNING tag_id
+            )
+            INSERT INTO tag_counts (tag_id, snip_count)
+            SELECT tag_id, count(*) FROM linked GROUP BY tag_id ORDER BY tag_id
+            ON CONFLICT (tag_id) DO UPDATE SET snip_count = tag_counts.snip_count + EXCLUDED.snip_count
+            """;
+
+    private static final String FIND_SQL = "SELECT id FROM tags WHERE name = ?";
+
+    // Most used first, so the warm entries are the ones most likely to be asked for
+    private static final String WARM_SQL = """
+            SELECT t.id, t.name FROM tag_counts c JOIN tags t ON t.id = c.tag_id
+            ORDER BY c.snip_count DESC, c.tag_id
+            LIMIT ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxEntries;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Long> ids;
+
+    @Autowired
+    public TagDictionary(JdbcTemplate jdbcTemplate,
+                         @Value("${codenest.tags.dictionary.max-entries:10000}") int maxEntries) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxEntries = maxEntries;
+        // Access order makes the eldest entry the least recently used one
+        this.ids = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > TagDictionary.this.maxEntries;
+            }
+        };
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        Map<String, Long> loaded = new LinkedHashMap<>();
+        jdbcTemplate.query(WARM_SQL, rs -> {
+            loaded.put(rs.getString("name"), rs.getLong("id"));
+        }, maxEntries);
+        // Least used first, so the most used end up most recently used
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(loaded.entrySet());
+        Collections.reverse(entries);
+        lock.lock();
+        try {
+            entries.forEach(entry -> ids.put(entry.getKey(), entry.getValue()));
+        } finally {
+            lock.unlock();
+        }
+        logger.info("Tag dictionary warmed with {} tags", loaded.size());
+    }
+
+    /**
+     * Trims tag names and drops blank and repeated ones, keeping the first occurrence order.
+     */
+    public static List<String> normalize(Collection<String> names) {
+        if (names == null) {
+            return List.of();
+        }
+        return names.stream()
+                .filter(name -> name != null && !name.isBlank())
+                .map(String::trim)
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * Id of an existing tag; unlike {@link #resolve} never creates one.
+     */
+    public Optional<Long> find(String name) {
+        lock.lock();
+        try {
+            Long id = ids.get(name);
+            if (id != null) {
+                return Optional.of(id);
+            }
+        } finally {
+            lock.unlock();
+        }
+        List<Long> found = jdbcTemplate.queryForList(FIND_SQL, Long.class, name);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        lock.lock();
+        try {
+            ids.put(name, found.get(0));
+        } finally {
+            lock.unlock();
+        }
+        return Optional.of(found.get(0));
+    }
+
+    /**
+     * Ids of the given tags, creating the ones that do not exist yet.
+     */
+    public Map<String, Long> resolve(Collection<String> names) {
+        Map<String, Long> resolved = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        lock.lock();
+        try {
+            for (String name : names) {
+                Long id = ids.get(name);
+                if (id != null) {
+                    resolved.put(name, id);
+                } else {
+                    missing.add(name);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        // A second pass only happens when a concurrent transaction created one of the tags
+        // after this statement's snapshot was taken, hiding it from both halves of the upsert
+        for (int attempt = 0; attempt < 2 && !missing.isEmpty(); attempt++) {
+            Map<String, Long> upserted = upsert(missing);
+            remember(upserted);
+            resolved.putAll(upserted);
+            missing.removeIf(upserted::containsKey);
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Could not resolve tags " + missing);
+        }
+        return resolved;
+    }
+
+    /**
+     * Tags a snip with the given, already {@link #normalize normalized}, tag names.
+     */
+    public void attach(long snipId, List<String> names) {
+        attachAll(Map.of(snipId, names));
+    }
+
+    /**
+     * Tags many snips at once, keyed by snip id, with one upsert for all their unknown tags
+     * and one insert for all links.
+     */
+    public void attachAll(Map<Long, List<String>> namesBySnip) {
+        Set<String> names = new LinkedHashSet<>();
+        namesBySnip.values().forEach(names::addAll);
+        if (names.isEmpty()) {
+            return;
+        }
+        Map<String, Long> resolved = resolve(names);
+        List<Long> snipIds = new ArrayList<>();
+        List<Long> tagIds = new ArrayList<>();
+        namesBySnip.forEach((snipId, snipTags) -> snipTags.forEach(name -> {
+            snipIds.add(snipId);
+            tagIds.add(resolved.get(name));
+        }));
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(ATTACH_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", snipIds.toArray()));
+            ps.setArray(2, con.createArrayOf("bigint", tagIds.toArray()));
+            return ps;
+        });
+    }
+
+    // Tags created by a transaction that rolls back never existed, so ids are only cached
+    // once the surrounding transaction, if any, has committed
+    private void remember(Map<String, Long> created) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    putAll(created);
+                }
+            });
+        } else {
+            putAll(created);
+        }
+    }
+
+    private void putAll(Map<String, Long> entries) {
+        lock.lock();
+        try {
+            ids.putAll(entries);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Map<String, Long> upsert(List<String> names) {
+        String[] array = names.toArray(new String[0]);
+        Map<String, Long> upserted = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(UPSERT_SQL);
+            ps.setArray(1, con.createArrayOf("text", array));
+            return ps;
+        }, rs -> {
+            upserted.put(rs.getString("name"), rs.getLong("id"));
+        });
+        return upserted;
+    }
+}
@@ -0,0 +1,181 @@
+package com.code.codenest.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * Hierarchical timing wheel of ids keyed by deadline, in the style of the Linux kernel
+ * timer wheel: {@value #LEVELS} levels of {@value #SLOTS} slots, where a slot on level
+ * {@code l} covers {@code 64^l} ticks. Entries far in the future sit on a coarse level and
+ * are cascaded down to finer levels as their deadline approaches.
+ * <p>
+ * Scheduling and cancelling are O(1): each slot is a circular doubly-linked list with a
+ * sentinel, and an id-to-node map finds the entry to unlink. Each pending id costs one
+ * node and one map entry. Not thread-safe; callers serialize access.
+ */
+public final class TimingWheel {
+    static final int SLOTS = 64;
+    static final int LEVELS = 6;
+    private static final int BITS = 6;
+    private static final int MASK = SLOTS - 1;
+    // 64^6 ticks; at 100 ms per tick this is over two centuries
+    private static final long SPAN = 1L << (BITS * LEVELS);
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final Node[][] wheel = new Node[LEVELS][SLOTS];
+    private final Map<Long, Node> nodes = new HashMap<>();
+    private long currentTick;
+
+    public TimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        for (Node[] level : wheel) {
+            for (int i = 0; i < SLOTS; i++) {
+                level[i] = Node.sentinel();
+            }
+        }
+    }
+
+    /**
+     * Schedules {@code id} to fire once {@code deadlineMillis} has passed, replacing any
+     * deadline it already had. A deadline that is already due fires on the next advance.
+     */
+    public void schedule(long id, long deadlineMillis) {
+        Node node = nodes.get(id);
+        if (node == null) {
+            node = new Node(id);
+            nodes.put(id, node);
+        } else {
+            node.unlink();
+        }
+        // Round up so an entry never fires before its deadline
+        long offset = deadlineMillis - startMillis;
+        node.tick = offset <= 0 ? 0 : (offset + tickMillis - 1) / tickMillis;
+        // The current tick's slot has already fired, so the earliest is the next one
+        place(node, currentTick + 1);
+    }
+
+    /**
+     * @return true if {@code id} was pending and has been removed
+     */
+    public boolean cancel(long id) {
+        Node node = nodes.remove(id);
+        if (node == null) {
+            return false;
+        }
+        node.unlink();
+        return true;
+    }
+
+    public boolean contains(long id) {
+        return nodes.containsKey(id);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMillis}, handing every id whose deadline has
+     * passed to {@code expired}. Fired ids are no longer pending.
+     */
+    public void advance(long nowMillis, LongConsumer expired) {
+        long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        while (currentTick < targetTick) {
+            if (nodes.isEmpty()) {
+                // Nothing to cascade or fire, so skip the idle ticks outright
+                currentTick = targetTick;
+                return;
+            }
+            currentTick++;
+            cascade();
+            fire(wheel[0][(int) (currentTick & MASK)], expired);
+        }
+    }
+
+    private void cascade() {
+        // Higher levels first so their entries can land on a lower level that is
+        // cascaded on this same tick
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            long levelMask = (1L << (BITS * level)) - 1;
+            if ((currentTick & levelMask) != 0) {
+                continue;
+            }
+            Node head = wheel[level][(int) ((currentTick >>> (BITS * level)) & MASK)];
+            Node node = head.next;
+            while (node != head) {
+                Node next = node.next;
+                node.unlink();
+                // Entries due on this very tick land in the level-0 slot about to fire
+                place(node, currentTick);
+                node = next;
+            }
+        }
+    }
+
+    private void fire(Node head, LongConsumer expired) {
+        Node node = head.next;
+        while (node != head) {
+            Node next = node.next;
+            node.unlink();
+            nodes.remove(node.id);
+            expired.accept(node.id);
+            node = next;
+        }
+    }
+
+    private void place(Node node, long earliestTick) {
+        long tick = Math.max(node.tick, earliestTick);
+        long delta = tick - currentTick;
+        if (delta >= SPAN) {
+            // Beyond the top level's reach; park it as late as possible and let the
+            // cascade re-place it using its real tick
+            tick = currentTick + SPAN - 1;
+            delta = SPAN - 1;
+        }
+        int level = 0;
+        while (delta >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        wheel[level][(int) ((tick >>> (BITS * level)) & MASK)].append(node);
+    }
+
+    private static final class Node {
+        final long id;
+        long tick;
+        Node prev;
+        Node next;
+
+        Node(long id) {
+            this.id = id;
+        }
+
+        static Node sentinel() {
+            Node node = new Node(-1);
+            node.prev = node;
+            node.next = node;
+            return node;
+        }
+
+        void append(Node node) {
+            node.prev = prev;
+            node.next = this;
+            prev.next = node;
+            prev = node;
+        }
+
+        void unlink() {
+            if (prev != null) {
+                prev.next = next;
+                next.prev = prev;
+                prev = null;
+                next = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.code.codenest.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Buffers snippet views in memory and writes them out on a schedule, so a read of
+ * GET /api/code/{uuid} no longer needs its own write transaction.
+ * <p>
+ * Counts are coalesced per snip id and flushed as one batched
+ * {@code UPDATE ... SET view_count = view_count + ?}; view logs are flushed as one
+ * batched insert. VIEWS-limited snips must not go through here: their views are
+ * reserved atomically in the database so the limit stays exact.
+ */
+@Component
+public class ViewCounterBuffer {
+    private static final Logger logger = LoggerFactory.getLogger(ViewCounterBuffer.class);
+
+    private static final String INCREMENT_SQL = "UPDATE snips SET view_count = view_count + ? WHERE id = ?";
+    private static final String VIEW_LOG_SQL = "INSERT INTO view_logs (snip_id, viewer_id, viewed_at) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxPendingViewLogs;
+
+    // ConcurrentHashMap.merge is atomic per key and contends only on the key's bin,
+    // and remove() hands the flusher an exact count without losing racing increments
+    private final ConcurrentHashMap<Long, Long> pendingCounts = new ConcurrentHashMap<>();
+    private final Queue<PendingViewLog> pendingViewLogs = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingViewLogCount = new AtomicInteger();
+
+    @Autowired
+    public ViewCounterBuffer(JdbcTemplate jdbcTemplate,
+                             @Value("${codenest.views.max-pending-logs:100000}") int maxPendingViewLogs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxPendingViewLogs = maxPendingViewLogs;
+    }
+
+    /**
+     * Counts one view of a snip whose view count is not used for expiry.
+     */
+    public void recordView(Long snipId, Long viewerId) {
+        pendingCounts.merge(snipId, 1L, Long::sum);
+        recordViewLog(snipId, viewerId);
+    }
+
+    /**
+     * Queues a view log only; used when the view count was already reserved in the database.
+     */
+    public void recordViewLog(Long snipId, Long viewerId) {
+        if (viewerId == null) {
+            return;
+        }
+        if (pendingViewLogCount.incrementAndGet() > maxPendingViewLogs) {
+            pendingViewLogCount.decrementAndGet();
+            logger.warn("View log buffer full, dropping view log for snip {}", snipId);
+            return;
+        }
+        pendingViewLogs.add(new PendingViewLog(snipId, viewerId, LocalDateTime.now()));
+    }
+
+    /**
+     * Views recorded for the snip that have not been written to the database yet.
+     */
+    public long pendingViews(Long snipId) {
+        return pendingCounts.getOrDefault(snipId, 0L);
+    }
+
+    @Scheduled(fixedDelayString = "${codenest.views.flush-interval-ms:1000}")
+    public void flush() {
+        flushCounts();
+        flushViewLogs();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        logger.info("Flushing buffered views before shutdown");
+        flush();
+    }
+
+    private void flushCounts() {
+        if (pendingCounts.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>();
+        for (Long snipId : pendingCounts.keySet()) {
+            Long count = pendingCounts.remove(snipId);
+            if (count != null && count > 0) {
+                batch.add(new Object[]{count, snipId});
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(INCREMENT_SQL, batch);
+            logger.debug("Flushed view counts for {} snips", batch.size());
+        } catch (DataAccessException e) {
+            // Put the counts back so the next flush retries them
+            for (Object[] row : batch) {
+                pendingCounts.merge((Long) row[1], (Long) row[0], Long::sum);
+            }
+            logger.error("Failed to flush view counts for {} snips, will retry", batch.size(), e);
+        }
+    }
+
+    private void flushViewLogs() {
+        List<Object[]> batch = new ArrayList<>();
+        PendingViewLog viewLog;
+        while ((viewLog = pendingViewLogs.poll()) != null) {
+            pendingViewLogCount.decrementAndGet();
+            batch.add(new Object[]{viewLog.snipId(), viewLog.viewerId(), Timestamp.valueOf(viewLog.viewedAt())});
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(VIEW_LOG_SQL, batch);
+            logger.debug("Flushed {} view logs", batch.size());
+        } catch (DataAccessException e) {
+            // View logs are best effort; dropping them never affects expiry
+            logger.error("Failed to flush {} view logs", batch.size(), e);
+        }
+    }
+
+    private record PendingViewLog(Long snipId, Long viewerId, LocalDateTime viewedAt) {
+    }
+}
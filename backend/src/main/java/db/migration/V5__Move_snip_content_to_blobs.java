@@ -0,0 +1,66 @@
+package db.migration;
+
+import com.code.codenest.model.ContentCodec;
+import com.code.codenest.model.SnipBlob;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Moves the content of live snips from snips.content_data into snip_blobs, sharing one
+ * blob between snips with identical content, then drops content_data. Written
+ * in Java because LZ4-encoded content can only be decoded by {@link ContentCodec}.
+ * Every blob is written through {@link ContentCodec#encode}, which is where the raw rows
+ * V3 carried over are compressed. Deleted snips are not served any more, so their
+ * content is dropped.
+ */
+public class V5__Move_snip_content_to_blobs extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String SELECT_SQL =
+            "SELECT id, content_data FROM snips WHERE blob_id IS NULL AND is_deleted = false AND content_data IS NOT NULL";
+    private static final String UPSERT_BLOB_SQL = """
+            INSERT INTO snip_blobs (hash, data, ref_count) VALUES (?, ?, 1)
+            ON CONFLICT (hash) DO UPDATE SET ref_count = snip_blobs.ref_count + 1
+            RETURNING id
+            """;
+    private static final String LINK_SQL = "UPDATE snips SET blob_id = ? WHERE id = ?";
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement select = connection.createStatement();
+             PreparedStatement upsertBlob = connection.prepareStatement(UPSERT_BLOB_SQL);
+             PreparedStatement link = connection.prepareStatement(LINK_SQL)) {
+            // Flyway runs the migration in a transaction, so the rows are read from a cursor
+            select.setFetchSize(BATCH_SIZE);
+            int pending = 0;
+            try (ResultSet rows = select.executeQuery(SELECT_SQL)) {
+                while (rows.next()) {
+                    String content = ContentCodec.decode(rows.getBytes("content_data"));
+                    upsertBlob.setBytes(1, SnipBlob.hash(content));
+                    upsertBlob.setBytes(2, ContentCodec.encode(content));
+                    long blobId;
+                    try (ResultSet blob = upsertBlob.executeQuery()) {
+                        blob.next();
+                        blobId = blob.getLong(1);
+                    }
+                    link.setLong(1, blobId);
+                    link.setLong(2, rows.getLong("id"));
+                    link.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        link.executeBatch();
+                        pending = 0;
+                    }
+                }
+            }
+            link.executeBatch();
+            select.execute("ALTER TABLE snips DROP COLUMN content_data");
+        }
+    }
+}
@@ -0,0 +1,17 @@
+-- Inbox, sent and conversation views page by keyset over (sent_at, id), newest first.
+-- The indexes end in id so each page is an index range scan with no sort, and the
+-- conversation query reads each direction from the pair index separately.
+UPDATE messages SET sent_at = CURRENT_TIMESTAMP WHERE sent_at IS NULL;
+ALTER TABLE messages ALTER COLUMN sent_at SET NOT NULL;
+
+-- MessageRepository.findInbox / findInboxBefore
+CREATE INDEX IF NOT EXISTS idx_messages_receiver_id_sent_at_id ON messages (receiver_id, sent_at DESC, id DESC);
+-- MessageRepository.findSent / findSentBefore
+CREATE INDEX IF NOT EXISTS idx_messages_sender_id_sent_at_id ON messages (sender_id, sent_at DESC, id DESC);
+-- MessageRepository.findConversation / findConversationBefore, one branch per direction;
+-- also serves findBySenderIdAndReceiverId
+CREATE INDEX IF NOT EXISTS idx_messages_sender_id_receiver_id_sent_at_id ON messages (sender_id, receiver_id, sent_at DESC, id DESC);
+
+DROP INDEX IF EXISTS idx_messages_receiver_id_sent_at;
+DROP INDEX IF EXISTS idx_messages_sender_id_sent_at;
+DROP INDEX IF EXISTS idx_messages_sender_id_receiver_id_sent_at;
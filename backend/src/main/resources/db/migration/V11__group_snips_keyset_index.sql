@@ -0,0 +1,9 @@
+-- Group snippet lists are read in chunks by keyset over (shared_at, id), newest share first.
+-- Ending the index in id keeps each chunk an index range scan, and shared_at must not be
+-- NULL for a row to be reachable from the keyset.
+UPDATE group_snips SET shared_at = CURRENT_TIMESTAMP WHERE shared_at IS NULL;
+ALTER TABLE group_snips ALTER COLUMN shared_at SET NOT NULL;
+
+-- GroupSnipRepository.findLiveSummariesByGroupId / findLiveSummariesByGroupIdBefore / findByGroupId
+CREATE INDEX IF NOT EXISTS idx_group_snips_group_id_shared_at_id ON group_snips (group_id, shared_at DESC, id DESC);
+DROP INDEX IF EXISTS idx_group_snips_group_id_shared_at;
@@ -0,0 +1,16 @@
+-- Snips under a tag are listed newest first by keyset over (created_at, id). Since snip ids
+-- come from pooled blocks and imports arrive in batches, id order is not creation order, so
+-- the snip's created_at is copied onto its tag links (they are only written by
+-- TagDictionary.attachAll, right after the snip) and indexed per tag.
+ALTER TABLE snip_tags ADD COLUMN IF NOT EXISTS snip_created_at TIMESTAMP;
+
+UPDATE snip_tags st
+SET snip_created_at = COALESCE(s.created_at, CURRENT_TIMESTAMP)
+FROM snips s
+WHERE s.id = st.snip_id AND st.snip_created_at IS NULL;
+
+ALTER TABLE snip_tags ALTER COLUMN snip_created_at SET NOT NULL;
+
+-- SnipRepository.findLiveByTag / findLiveByTagBefore; also serves SnipTagRepository.findByTagId
+CREATE INDEX IF NOT EXISTS idx_snip_tags_tag_id_created_at_snip_id ON snip_tags (tag_id, snip_created_at DESC, snip_id DESC);
+DROP INDEX IF EXISTS idx_snip_tags_tag_id_snip_id;
@@ -0,0 +1,4 @@
+-- SnipExpiryService now clears the stored preview, a prefix of the content, when a snip
+-- expires. Clear it for snips that expired before, so released content is gone from them too.
+UPDATE snips SET preview = NULL, content_length = 0
+WHERE is_deleted = true AND (preview IS NOT NULL OR content_length <> 0);
@@ -0,0 +1,131 @@
+-- Baseline schema, matching Schema.txt. Every statement is idempotent so this also runs
+-- cleanly against databases that were created earlier by Hibernate's ddl-auto=update.
+
+CREATE TABLE IF NOT EXISTS users (
+    id BIGSERIAL PRIMARY KEY,
+    uuid VARCHAR(255) UNIQUE NOT NULL,
+    username VARCHAR(255) UNIQUE NOT NULL,
+    email VARCHAR(255) UNIQUE NOT NULL,
+    password_hash VARCHAR(255) NOT NULL,
+    personal VARCHAR(255),
+    github VARCHAR(255),
+    linkedin VARCHAR(255),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS snips (
+    id BIGSERIAL PRIMARY KEY,
+    uuid VARCHAR(255) UNIQUE NOT NULL,
+    user_id BIGINT NOT NULL,
+    title VARCHAR(255),
+    content TEXT NOT NULL,
+    expiration_type VARCHAR(20),
+    expiration_value BIGINT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    view_count BIGINT DEFAULT 0,
+    is_deleted BOOLEAN DEFAULT FALSE,
+    FOREIGN KEY (user_id) REFERENCES users(id)
+);
+
+ALTER TABLE snips ADD COLUMN IF NOT EXISTS expires_at TIMESTAMP;
+
+CREATE TABLE IF NOT EXISTS messages (
+    id BIGSERIAL PRIMARY KEY,
+    sender_id BIGINT NOT NULL,
+    receiver_id BIGINT NOT NULL,
+    snip_id BIGINT,
+    content TEXT NOT NULL,
+    sent_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (sender_id) REFERENCES users(id),
+    FOREIGN KEY (receiver_id) REFERENCES users(id),
+    FOREIGN KEY (snip_id) REFERENCES snips(id)
+);
+
+CREATE TABLE IF NOT EXISTS view_logs (
+    id BIGSERIAL PRIMARY KEY,
+    snip_id BIGINT NOT NULL,
+    viewer_id BIGINT,
+    viewed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (snip_id) REFERENCES snips(id),
+    FOREIGN KEY (viewer_id) REFERENCES users(id)
+);
+
+CREATE TABLE IF NOT EXISTS expiration_logs (
+    id BIGSERIAL PRIMARY KEY,
+    snip_id BIGINT NOT NULL,
+    expired_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    expiration_reason VARCHAR(20) NOT NULL,
+    FOREIGN KEY (snip_id) REFERENCES snips(id)
+);
+
+CREATE TABLE IF NOT EXISTS tags (
+    id BIGSERIAL PRIMARY KEY,
+    name VARCHAR(255) UNIQUE NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS snip_tags (
+    id BIGSERIAL PRIMARY KEY,
+    snip_id BIGINT NOT NULL,
+    tag_id BIGINT NOT NULL,
+    FOREIGN KEY (snip_id) REFERENCES snips(id),
+    FOREIGN KEY (tag_id) REFERENCES tags(id),
+    UNIQUE (snip_id, tag_id)
+);
+
+CREATE TABLE IF NOT EXISTS groups (
+    id BIGSERIAL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    creator_id BIGINT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (creator_id) REFERENCES users(id)
+);
+
+CREATE TABLE IF NOT EXISTS group_members (
+    id BIGSERIAL PRIMARY KEY,
+    group_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    joined_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (group_id) REFERENCES groups(id),
+    FOREIGN KEY (user_id) REFERENCES users(id),
+    UNIQUE (group_id, user_id)
+);
+
+CREATE TABLE IF NOT EXISTS group_snips (
+    id BIGSERIAL PRIMARY KEY,
+    group_id BIGINT NOT NULL,
+    snip_id BIGINT NOT NULL,
+    shared_by_id BIGINT NOT NULL,
+    shared_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (group_id) REFERENCES groups(id),
+    FOREIGN KEY (snip_id) REFERENCES snips(id),
+    FOREIGN KEY (shared_by_id) REFERENCES users(id),
+    UNIQUE (group_id, snip_id)
+);
+
+-- Hibernate-created tables lack the UNIQUE constraints above. These indexes take the
+-- constraints' default names, so on a fresh database they already exist and are skipped.
+CREATE UNIQUE INDEX IF NOT EXISTS users_uuid_key ON users (uuid);
+CREATE UNIQUE INDEX IF NOT EXISTS snips_uuid_key ON snips (uuid);
+
+DELETE FROM snip_tags a USING snip_tags b
+WHERE a.snip_id = b.snip_id AND a.tag_id = b.tag_id AND a.id > b.id;
+CREATE UNIQUE INDEX IF NOT EXISTS snip_tags_snip_id_tag_id_key ON snip_tags (snip_id, tag_id);
+
+DELETE FROM group_members a USING group_members b
+WHERE a.group_id = b.group_id AND a.user_id = b.user_id AND a.id > b.id;
+CREATE UNIQUE INDEX IF NOT EXISTS group_members_group_id_user_id_key ON group_members (group_id, user_id);
+
+CREATE UNIQUE INDEX IF NOT EXISTS group_snips_group_id_snip_id_key ON group_snips (group_id, snip_id);
+
+CREATE INDEX IF NOT EXISTS idx_snips_user_id ON snips (user_id);
+CREATE INDEX IF NOT EXISTS idx_snips_created_at ON snips (created_at);
+CREATE INDEX IF NOT EXISTS idx_snips_expires_at ON snips (expires_at) WHERE is_deleted = false;
+CREATE INDEX IF NOT EXISTS idx_messages_sender_id ON messages (sender_id);
+CREATE INDEX IF NOT EXISTS idx_messages_receiver_id ON messages (receiver_id);
+CREATE INDEX IF NOT EXISTS idx_view_logs_snip_id ON view_logs (snip_id);
+CREATE INDEX IF NOT EXISTS idx_view_logs_viewer_id ON view_logs (viewer_id);
+CREATE INDEX IF NOT EXISTS idx_group_members_group_id ON group_members (group_id);
+CREATE INDEX IF NOT EXISTS idx_group_members_user_id ON group_members (user_id);
+CREATE INDEX IF NOT EXISTS idx_group_snips_group_id ON group_snips (group_id);
+CREATE INDEX IF NOT EXISTS idx_group_snips_snip_id ON group_snips (snip_id);
+CREATE INDEX IF NOT EXISTS idx_group_snips_shared_by ON group_snips (shared_by_id);
@@ -0,0 +1,36 @@
+-- Indexes shaped after the queries in the repository package. Composite indexes lead
+-- with the equality column and continue with the ORDER BY columns, so each list is read
+-- in order straight off the index instead of being sorted.
+
+-- SnipRepository.findByUserIdOrderByIdDesc
+CREATE INDEX IF NOT EXISTS idx_snips_user_id_id ON snips (user_id, id DESC);
+DROP INDEX IF EXISTS idx_snips_user_id;
+
+-- SnipRepository.findLatest / findLatestBefore (keyset over created_at, id of live snips)
+CREATE INDEX IF NOT EXISTS idx_snips_live_created_at_id ON snips (created_at DESC, id DESC) WHERE is_deleted = false;
+DROP INDEX IF EXISTS idx_snips_created_at;
+
+-- SnipTagRepository.findByTagId; lookups by snip_id use snip_tags_snip_id_tag_id_key
+CREATE INDEX IF NOT EXISTS idx_snip_tags_tag_id ON snip_tags (tag_id);
+
+-- MessageRepository.findByReceiverIdOrderBySentAtDesc / findBySenderIdOrderBySentAtDesc
+CREATE INDEX IF NOT EXISTS idx_messages_receiver_id_sent_at ON messages (receiver_id, sent_at DESC);
+CREATE INDEX IF NOT EXISTS idx_messages_sender_id_sent_at ON messages (sender_id, sent_at DESC);
+DROP INDEX IF EXISTS idx_messages_receiver_id;
+DROP INDEX IF EXISTS idx_messages_sender_id;
+
+-- MessageRepository.findBySenderIdAndReceiverId / findConversation
+CREATE INDEX IF NOT EXISTS idx_messages_sender_id_receiver_id_sent_at ON messages (sender_id, receiver_id, sent_at);
+
+-- GroupSnipRepository.findByGroupId / findLiveByGroupIdWithSnips
+CREATE INDEX IF NOT EXISTS idx_group_snips_group_id_shared_at ON group_snips (group_id, shared_at DESC);
+DROP INDEX IF EXISTS idx_group_snips_group_id;
+
+-- GroupMemberRepository lookups by group_id use group_members_group_id_user_id_key
+DROP INDEX IF EXISTS idx_group_members_group_id;
+
+-- ExpirationLogRepository.findBySnipId
+CREATE INDEX IF NOT EXISTS idx_expiration_logs_snip_id ON expiration_logs (snip_id);
+
+-- GroupRepository.findByCreatorId
+CREATE INDEX IF NOT EXISTS idx_groups_creator_id ON groups (creator_id);
@@ -0,0 +1,19 @@
+-- Snip content is stored as bytes written by ContentCodec: a header byte naming the codec
+-- (0 = raw UTF-8, 1 = LZ4) followed by the body. Existing rows are carried over raw.
+-- Snips are never rewritten, so they are only compressed when the V5 Java migration
+-- re-encodes live content into snip_blobs.
+ALTER TABLE snips ADD COLUMN IF NOT EXISTS content_data BYTEA;
+ALTER TABLE snips ADD COLUMN IF NOT EXISTS preview VARCHAR(200);
+ALTER TABLE snips ADD COLUMN IF NOT EXISTS content_length INTEGER;
+
+UPDATE snips
+SET content_data   = '\x00'::bytea || convert_to(content, 'UTF8'),
+    preview        = substring(content, 1, 200),
+    content_length = length(content)
+WHERE content_data IS NULL;
+
+ALTER TABLE snips ALTER COLUMN content_data SET NOT NULL;
+ALTER TABLE snips DROP COLUMN content;
+
+-- LZ4-encoded values would not shrink further; keep them out of line without pglz
+ALTER TABLE snips ALTER COLUMN content_data SET STORAGE EXTERNAL;
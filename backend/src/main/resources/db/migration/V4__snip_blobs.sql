@@ -0,0 +1,24 @@
+-- Content-addressed snip bodies: one row per distinct normalized content, keyed by its
+-- SHA-256 and shared by every snip with that content. Existing content is moved over by
+-- the V5 Java migration, which decodes it with ContentCodec.
+CREATE TABLE IF NOT EXISTS snip_blobs (
+    id BIGSERIAL PRIMARY KEY,
+    hash BYTEA NOT NULL,
+    data BYTEA NOT NULL,
+    ref_count INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT snip_blobs_hash_key UNIQUE (hash)
+);
+
+-- data is written by ContentCodec and already compressed where it pays off
+ALTER TABLE snip_blobs ALTER COLUMN data SET STORAGE EXTERNAL;
+
+-- SnipBlobStore.collectAll
+CREATE INDEX IF NOT EXISTS idx_snip_blobs_unreferenced ON snip_blobs (id) WHERE ref_count <= 0;
+
+-- NULL once the snip has expired and released its reference
+ALTER TABLE snips ADD COLUMN IF NOT EXISTS blob_id BIGINT REFERENCES snip_blobs (id) ON DELETE SET NULL;
+ALTER TABLE snips ALTER COLUMN content_data DROP NOT NULL;
+
+-- Deleting a blob sets the pointers to it to NULL
+CREATE INDEX IF NOT EXISTS idx_snips_blob_id ON snips (blob_id);
@@ -0,0 +1,12 @@
+-- Large blobs may live in a local segment file (SegmentBlobStore) instead of in data;
+-- segment_offset is where the UTF-8 content starts, past the record header.
+ALTER TABLE snip_blobs ALTER COLUMN data DROP NOT NULL;
+ALTER TABLE snip_blobs ADD COLUMN IF NOT EXISTS segment_id INTEGER;
+ALTER TABLE snip_blobs ADD COLUMN IF NOT EXISTS segment_offset BIGINT;
+ALTER TABLE snip_blobs ADD COLUMN IF NOT EXISTS segment_length INTEGER;
+ALTER TABLE snip_blobs ADD CONSTRAINT snip_blobs_data_or_segment
+    CHECK (data IS NOT NULL OR (segment_id IS NOT NULL AND segment_offset IS NOT NULL AND segment_length IS NOT NULL));
+
+-- SegmentBlobStore.compact reads the live records of one segment in file order
+CREATE INDEX IF NOT EXISTS idx_snip_blobs_segment_id_offset ON snip_blobs (segment_id, segment_offset)
+    WHERE segment_id IS NOT NULL;
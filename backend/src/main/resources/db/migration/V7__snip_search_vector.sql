@@ -0,0 +1,7 @@
+-- Full-text search document of a live snip: title (weight A), tags (B) and content (C).
+-- Written by SnipSearchIndex on create, since content is stored encoded in snip_blobs;
+-- cleared when the snip expires. Existing snips are indexed at startup.
+ALTER TABLE snips ADD COLUMN IF NOT EXISTS search_vector TSVECTOR;
+
+CREATE INDEX IF NOT EXISTS idx_snips_search_vector ON snips USING GIN (search_vector)
+    WHERE is_deleted = false;
@@ -0,0 +1,21 @@
+-- Number of live snips carrying each tag, kept current by TagDictionary.attach on create
+-- and by SnipExpiryService on expiry, so popular tags are read without counting snip_tags.
+CREATE TABLE IF NOT EXISTS tag_counts (
+    tag_id BIGINT PRIMARY KEY REFERENCES tags(id),
+    snip_count BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO tag_counts (tag_id, snip_count)
+SELECT st.tag_id, count(*)
+FROM snip_tags st JOIN snips s ON s.id = st.snip_id
+WHERE s.is_deleted = false
+GROUP BY st.tag_id
+ON CONFLICT (tag_id) DO NOTHING;
+
+-- TagRepository.findMostUsed
+CREATE INDEX IF NOT EXISTS idx_tag_counts_snip_count ON tag_counts (snip_count DESC, tag_id);
+
+-- SnipRepository.findLiveByTagBefore (keyset over snip_id within a tag); also serves
+-- SnipTagRepository.findByTagId
+CREATE INDEX IF NOT EXISTS idx_snip_tags_tag_id_snip_id ON snip_tags (tag_id, snip_id DESC);
+DROP INDEX IF EXISTS idx_snip_tags_tag_id;
@@ -0,0 +1,5 @@
+-- Snip ids come from a pooled sequence (allocationSize 50 on Snip): each nextval reserves
+-- a block of 50, so a batch of new snips needs one sequence call instead of one per row.
+-- Plain inserts relying on the column default each consume a whole block, so they never
+-- collide with ids Hibernate hands out.
+ALTER SEQUENCE snips_id_seq INCREMENT BY 50;
@@ -0,0 +1,86 @@
+package com.code.codenest.controller;
+
+import com.code.codenest.CodenestApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Boots the application on an embedded PostgreSQL with the segment store enabled and checks
+ * that {@code GET /api/code/{uuid}/raw} streams content kept in a segment file.
+ */
+class RawContentSegmentTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path segments;
+
+    @Test
+    void streamsContentStoredInASegment() throws Exception {
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+            ConfigurableApplicationContext context = SpringApplication.run(CodenestApplication.class,
+                    "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                    "--spring.datasource.username=postgres",
+                    "--spring.datasource.password=",
+                    "--server.port=0",
+                    "--codenest.blob-segments.enabled=true",
+                    "--codenest.blob-segments.directory=" + segments,
+                    "--codenest.blob-segments.threshold-bytes=1024");
+            try {
+                String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/api";
+                HttpClient client = HttpClient.newHttpClient();
+
+                JsonNode user = post(client, baseUrl + "/register", Map.of(
+                        "username", "raw", "email", "raw@example.com", "password", "raw-password"), null);
+                String cookie = "uuid=" + user.get("uuid").asText();
+                String content = "SELECT 'ünïcödé' AS line;\n".repeat(200);
+                String uuid = post(client, baseUrl + "/code/new", Map.of(
+                        "title", "Large snippet", "content", content, "tags", List.of()), cookie).get("uuid").asText();
+
+                // Past the threshold, so the body went to a segment file and not to Postgres
+                try (Stream<Path> files = Files.list(segments)) {
+                    assertTrue(files.anyMatch(file -> file.toFile().length() >= content.getBytes(StandardCharsets.UTF_8).length));
+                }
+
+                HttpResponse<byte[]> raw = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/code/" + uuid + "/raw"))
+                        .GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+                assertEquals(200, raw.statusCode());
+                assertTrue(raw.headers().firstValue("Content-Type").orElse("").startsWith("text/plain"));
+                assertEquals(content, new String(raw.body(), StandardCharsets.UTF_8));
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private JsonNode post(HttpClient client, String url, Object body, String cookie) throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        if (cookie != null) {
+            builder.header("Cookie", cookie);
+        }
+        HttpResponse<String> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), () -> url + " returned " + response.body());
+        return objectMapper.readTree(response.body());
+    }
+}
@@ -0,0 +1,183 @@
+package com.code.codenest.load;
+
+import com.code.codenest.CodenestApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives the application with and without virtual threads at increasing concurrency and
+ * prints p99 latency per level and the highest level served without errors, for both
+ * modes. Half the requests are served from the snip cache, the other half stream the
+ * user's snippets from the database and so queue for a pooled connection.
+ * <p>
+ * Run with {@code ./gradlew loadTest}; excluded from {@code ./gradlew test}.
+ */
+@Tag("load")
+class VirtualThreadLoadTest {
+
+    private static final int[] CONCURRENCY_LEVELS = {50, 200, 800, 2000};
+    private static final int REQUESTS_PER_CLIENT = 20;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    // A level only counts as served if its p99 stays below this
+    private static final long MAX_P99_MILLIS = 2000;
+
+    private static final Map<Boolean, List<LevelResult>> results = new TreeMap<>();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @ParameterizedTest(name = "virtual threads = {0}")
+    @ValueSource(booleans = {false, true})
+    void measureLatencyUnderLoad(boolean virtualThreads) throws Exception {
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+            ConfigurableApplicationContext context = SpringApplication.run(CodenestApplication.class,
+                    "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                    "--spring.datasource.username=postgres",
+                    "--spring.datasource.password=",
+                    "--spring.threads.virtual.enabled=" + virtualThreads,
+                    "--server.port=0",
+                    "--spring.jpa.show-sql=false",
+                    "--logging.level.com.code.codenest=WARN",
+                    "--logging.level.org.springframework.web=WARN",
+                    "--logging.level.org.springframework.security=WARN");
+            try {
+                String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/api";
+                results.put(virtualThreads, run(baseUrl));
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    @AfterAll
+    static void report() {
+        System.out.println();
+        System.out.printf("%-16s %12s %10s %10s %8s%n", "mode", "concurrency", "p50 (ms)", "p99 (ms)", "errors");
+        results.forEach((virtualThreads, levels) -> {
+            String mode = virtualThreads ? "virtual" : "platform";
+            int maxServed = 0;
+            for (LevelResult level : levels) {
+                System.out.printf("%-16s %12d %10d %10d %8d%n",
+                        mode, level.concurrency(), level.p50Millis(), level.p99Millis(), level.errors());
+                if (level.errors() == 0 && level.p99Millis() <= MAX_P99_MILLIS) {
+                    maxServed = Math.max(maxServed, level.concurrency());
+                }
+            }
+            System.out.printf("%-16s max concurrency served (no errors, p99 <= %d ms): %d%n", mode, MAX_P99_MILLIS, maxServed);
+        });
+    }
+
+    private List<LevelResult> run(String baseUrl) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(REQUEST_TIMEOUT)
+                .build();
+
+        JsonNode user = post(client, baseUrl + "/register", Map.of(
+                "username", "load", "email", "load@example.com", "password", "load-password"), null);
+        String cookie = "uuid=" + user.get("uuid").asText();
+        String snippetUuid = null;
+        for (int i = 0; i < 20; i++) {
+            snippetUuid = post(client, baseUrl + "/code/new", Map.of(
+                    "title", "Load snippet " + i,
+                    "content", ("SELECT " + i + ";\n").repeat(50),
+                    "tags", List.of("load")), cookie).get("uuid").asText();
+        }
+
+        HttpRequest cached = HttpRequest.newBuilder(URI.create(baseUrl + "/code/" + snippetUuid + "?skipIncrement=true"))
+                .timeout(REQUEST_TIMEOUT).GET().build();
+        HttpRequest fromDatabase = HttpRequest.newBuilder(URI.create(baseUrl + "/user/snippets"))
+                .header("Cookie", cookie)
+                .timeout(REQUEST_TIMEOUT).GET().build();
+
+        // Warm up connections, caches and the JIT before measuring
+        runLevel(client, 50, cached, fromDatabase);
+
+        List<LevelResult> levels = new ArrayList<>();
+        for (int concurrency : CONCURRENCY_LEVELS) {
+            levels.add(runLevel(client, concurrency, cached, fromDatabase));
+        }
+        return levels;
+    }
+
+    private LevelResult runLevel(HttpClient client, int concurrency, HttpRequest cached, HttpRequest fromDatabase)
+            throws Exception {
+        List<Future<long[]>> clients = new ArrayList<>(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrency; c++) {
+                int clientIndex = c;
+                clients.add(executor.submit(() -> {
+                    // Latency in nanos per request, or -1 for a failed request
+                    long[] latencies = new long[REQUESTS_PER_CLIENT];
+                    for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                        HttpRequest request = (clientIndex + i) % 2 == 0 ? cached : fromDatabase;
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            latencies[i] = response.statusCode() == 200 ? System.nanoTime() - start : -1;
+                        } catch (Exception e) {
+                            latencies[i] = -1;
+                        }
+                    }
+                    return latencies;
+                }));
+            }
+        }
+
+        long[] all = new long[concurrency * REQUESTS_PER_CLIENT];
+        int count = 0;
+        int errors = 0;
+        for (Future<long[]> future : clients) {
+            for (long latency : future.get()) {
+                if (latency < 0) {
+                    errors++;
+                } else {
+                    all[count++] = latency;
+                }
+            }
+        }
+        assertTrue(count > 0, "every request failed at concurrency " + concurrency);
+        long[] latencies = Arrays.copyOf(all, count);
+        Arrays.sort(latencies);
+        return new LevelResult(concurrency, percentileMillis(latencies, 0.50), percentileMillis(latencies, 0.99), errors);
+    }
+
+    private static long percentileMillis(long[] sortedNanos, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return Duration.ofNanos(sortedNanos[Math.max(0, index)]).toMillis();
+    }
+
+    private JsonNode post(HttpClient client, String url, Object body, String cookie) throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        if (cookie != null) {
+            builder.header("Cookie", cookie);
+        }
+        HttpResponse<String> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), () -> url + " returned " + response.body());
+        return objectMapper.readTree(response.body());
+    }
+
+    private record LevelResult(int concurrency, long p50Millis, long p99Millis, int errors) {
+    }
+}
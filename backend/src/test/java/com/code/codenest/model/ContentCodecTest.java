@@ -0,0 +1,42 @@
+package com.code.codenest.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ContentCodec}; no Spring context or database needed.
+ */
+class ContentCodecTest {
+
+    @Test
+    void storesShortContentRaw() {
+        byte[] encoded = ContentCodec.encode("SELECT 1;");
+
+        assertEquals(0, encoded[0]);
+        assertEquals("SELECT 1;", ContentCodec.decode(encoded));
+    }
+
+    @Test
+    void compressesLargeRepetitiveContent() {
+        String content = "2025-01-01 INFO request served in 12 ms\n".repeat(1000);
+        byte[] encoded = ContentCodec.encode(content);
+
+        assertEquals(1, encoded[0]);
+        assertTrue(encoded.length < content.length() / 5);
+        assertEquals(content, ContentCodec.decode(encoded));
+    }
+
+    @Test
+    void roundTripsMultiByteCharacters() {
+        String content = "// héllo wörld ✓ 😀\n".repeat(200);
+
+        assertEquals(content, ContentCodec.decode(ContentCodec.encode(content)));
+        assertEquals("", ContentCodec.decode(ContentCodec.encode("")));
+    }
+
+    @Test
+    void rejectsUnknownHeaders() {
+        assertThrows(IllegalStateException.class, () -> ContentCodec.decode(new byte[]{9, 1, 2}));
+    }
+}
@@ -0,0 +1,428 @@
+package com.code.codenest.repository;
+
+import com.code.codenest.CodenestApplication;
+import com.code.codenest.model.User;
+import com.code.codenest.service.ExpiryScheduler;
+import com.code.codenest.service.SegmentBlobStore;
+import com.code.codenest.service.SnipBlobStore;
+import com.code.codenest.service.SnipExpiryService;
+import com.code.codenest.service.SnipExporter;
+import com.code.codenest.service.SnipSearchIndex;
+import com.code.codenest.service.TagDictionary;
+import com.code.codenest.service.ViewCounterBuffer;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Boots the application on an embedded PostgreSQL and checks that the statements behind
+ * each repository method and JDBC query are planned with an index. Every statement a call
+ * runs is explained with its bound parameters on the connection it runs on, so the plans
+ * are those of the SQL that Hibernate and the services actually send. Sequential scans
+ * are disabled so the planner only falls back to one when no usable index exists.
+ */
+class RepositoryQueryPlanTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final Pageable PAGE = PageRequest.of(0, 11);
+
+    // Large enough for the segment store, and two records fill a segment
+    private static final int SEGMENT_CONTENT_LENGTH = 1500;
+    private static final int SEGMENT_SIZE = 4096;
+
+    private static final Pattern EXPLAINABLE = Pattern.compile("^\\s*\\(?\\s*(select|insert|update|delete|with)\\b",
+            Pattern.CASE_INSENSITIVE);
+    private static final String EXPLAIN_FAILED = "EXPLAIN failed: ";
+
+    // Plans of the statements the running call has prepared on this thread; null outside a call
+    private static final ThreadLocal<List<String>> plans = new ThreadLocal<>();
+
+    @TempDir
+    static Path segments;
+
+    private static EmbeddedPostgres postgres;
+    private static ConfigurableApplicationContext context;
+    private static User user;
+
+    @BeforeAll
+    static void start() throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+        SpringApplication application = new SpringApplication(CodenestApplication.class);
+        application.addInitializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? explaining(dataSource) : bean;
+            }
+        }));
+        context = application.run(
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=",
+                "--spring.datasource.hikari.connection-init-sql=SET enable_seqscan = off",
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                // Flushed by the test, not by the scheduler on another thread
+                "--codenest.views.flush-interval-ms=3600000",
+                "--codenest.blob-segments.enabled=true",
+                "--codenest.blob-segments.directory=" + segments,
+                "--codenest.blob-segments.threshold-bytes=" + SEGMENT_CONTENT_LENGTH,
+                "--codenest.blob-segments.segment-size=" + SEGMENT_SIZE,
+                "--logging.level.com.code.codenest=WARN");
+
+        User planUser = new User();
+        planUser.setUsername("plan");
+        planUser.setEmail("plan@example.com");
+        planUser.setPassword("plan-password");
+        user = bean(UserRepository.class).save(planUser);
+    }
+
+    @AfterAll
+    static void stop() throws Exception {
+        if (context != null) {
+            context.close();
+        }
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    static Stream<Arguments> repositoryQueries() {
+        return Stream.of(
+                query("UserRepository.findByUuid",
+                        () -> bean(UserRepository.class).findByUuid("u"), "users_uuid_key"),
+                query("UserRepository.findByEmail",
+                        () -> bean(UserRepository.class).findByEmail("e"), "users_email_key"),
+                query("UserRepository.findByUsername",
+                        () -> bean(UserRepository.class).findByUsername("n"), "users_username_key"),
+
+                query("SnipRepository.findByUuid",
+                        () -> bean(SnipRepository.class).findByUuid("u"), "snips_uuid_key"),
+                query("SnipRepository.findWithBlobByUuid",
+                        () -> bean(SnipRepository.class).findWithBlobByUuid("u"), "snips_uuid_key"),
+                query("SnipRepository.findByUserIdOrderByIdDesc",
+                        () -> bean(SnipRepository.class).findByUserIdOrderByIdDesc(user.getId()), "idx_snips_user_id_id"),
+                query("SnipRepository.findSummariesByUserIdBefore",
+                        () -> bean(SnipRepository.class).findSummariesByUserIdBefore(user.getId(), Long.MAX_VALUE, PAGE),
+                        "idx_snips_user_id_id"),
+                query("SnipRepository.findLatest",
+                        () -> bean(SnipRepository.class).findLatest(NOW, PAGE), "idx_snips_live_created_at_id"),
+                query("SnipRepository.findLatestBefore",
+                        () -> bean(SnipRepository.class).findLatestBefore(NOW, 100L, NOW, PAGE),
+                        "idx_snips_live_created_at_id"),
+                query("SnipRepository.findLiveByTag",
+                        () -> bean(SnipRepository.class).findLiveByTag(1L, NOW, PAGE),
+                        "idx_snip_tags_tag_id_created_at_snip_id"),
+                query("SnipRepository.findLiveByTagBefore",
+                        () -> bean(SnipRepository.class).findLiveByTagBefore(1L, NOW, 100L, NOW, PAGE),
+                        "idx_snip_tags_tag_id_created_at_snip_id"),
+                query("SnipRepository.findSummariesByIdIn",
+                        () -> bean(SnipRepository.class).findSummariesByIdIn(List.of(1L, 2L, 3L)), "snips_pkey"),
+                query("SnipRepository.consumeView",
+                        () -> bean(SnipRepository.class).consumeView("u"), "snips_uuid_key"),
+
+                query("SnipSearchIndex.search",
+                        () -> bean(SnipSearchIndex.class).search("null pointer", List.of("java"), null, NOW, 10),
+                        "idx_snips_search_vector"),
+                query("SnipSearchIndex.search after",
+                        () -> bean(SnipSearchIndex.class).search("null pointer", List.of(),
+                                new SnipSearchIndex.Hit(100, 0.5), NOW, 10),
+                        "idx_snips_search_vector"),
+                query("SnipExporter.export",
+                        () -> bean(SnipExporter.class).export(user).writeTo(new ByteArrayOutputStream()),
+                        "idx_snips_user_id_id"),
+                query("ViewCounterBuffer.flush",
+                        () -> {
+                            ViewCounterBuffer views = bean(ViewCounterBuffer.class);
+                            views.recordView(1L, null);
+                            views.flush();
+                        },
+                        "snips_pkey"),
+
+                query("SnipExpiryService.expireDue",
+                        () -> bean(SnipExpiryService.class).expireDue(NOW, 500), "idx_snips_expires_at"),
+                query("SnipExpiryService.expire",
+                        () -> bean(SnipExpiryService.class).expire(List.of(1L, 2L, 3L), NOW),
+                        "snips_pkey", "idx_snips_expires_at"),
+                query("SnipExpiryService.expireByViews",
+                        () -> bean(SnipExpiryService.class).expireByViews(1L, NOW), "snips_pkey"),
+                query("ExpiryScheduler.load",
+                        () -> bean(ExpiryScheduler.class).load(), "idx_snips_expires_at"),
+
+                query("SnipBlobStore.acquire",
+                        () -> bean(SnipBlobStore.class).acquire("plan"), "snip_blobs_hash_key"),
+                query("SnipBlobStore.acquireAll",
+                        () -> {
+                            SnipBlobStore blobs = bean(SnipBlobStore.class);
+                            blobs.acquireAll(List.of("plan all 1", "plan all 2", "plan all 1"));
+                            // Again, so the contents now exist
+                            blobs.acquireAll(List.of("plan all 1", "plan all 2"));
+                        },
+                        "snip_blobs_hash_key"),
+                query("SnipBlobStore.collect",
+                        () -> bean(SnipBlobStore.class).collect(List.of(1L, 2L, 3L)),
+                        "snip_blobs_pkey", "idx_snip_blobs_unreferenced"),
+                query("SnipBlobStore.collectAll",
+                        () -> bean(SnipBlobStore.class).collectAll(), "idx_snip_blobs_unreferenced"),
+                query("SegmentBlobStore.compact",
+                        () -> {
+                            // Three records roll over to a second segment, sealing the first
+                            SnipBlobStore blobs = bean(SnipBlobStore.class);
+                            for (char c = 'a'; c < 'd'; c++) {
+                                blobs.acquire(String.valueOf(c).repeat(SEGMENT_CONTENT_LENGTH));
+                            }
+                            bean(SegmentBlobStore.class).compact();
+                        },
+                        "idx_snip_blobs_segment_id_offset"),
+
+                query("SnipTagRepository.findBySnipId",
+                        () -> bean(SnipTagRepository.class).findBySnipId(1L), "snip_tags_snip_id_tag_id_key"),
+                query("SnipTagRepository.findByTagId",
+                        () -> bean(SnipTagRepository.class).findByTagId(1L), "idx_snip_tags_tag_id_created_at_snip_id"),
+                query("SnipTagRepository.deleteBySnipIdAndTagId",
+                        () -> inTransaction(() -> bean(SnipTagRepository.class).deleteBySnipIdAndTagId(1L, 2L)),
+                        "snip_tags_snip_id_tag_id_key"),
+                query("SnipTagRepository.findTagNamesBySnipIds",
+                        () -> bean(SnipTagRepository.class).findTagNamesBySnipIds(List.of(1L, 2L, 3L)),
+                        "snip_tags_snip_id_tag_id_key"),
+                query("TagRepository.findByName",
+                        () -> bean(TagRepository.class).findByName("java"), "tags_name_key"),
+                query("TagRepository.findMostUsed",
+                        () -> bean(TagRepository.class).findMostUsed(50), "idx_tag_counts_snip_count"),
+                query("TagDictionary.resolve",
+                        () -> bean(TagDictionary.class).resolve(List.of("plan-java", "plan-sql")), "tags_name_key"),
+
+                query("MessageRepository.findBySenderIdAndReceiverId",
+                        () -> bean(MessageRepository.class).findBySenderIdAndReceiverId(1L, 2L),
+                        "idx_messages_sender_id_receiver_id_sent_at_id"),
+                query("MessageRepository.findInbox",
+                        () -> bean(MessageRepository.class).findInbox(1L, PageRequest.of(0, 51)),
+                        "idx_messages_receiver_id_sent_at_id"),
+                query("MessageRepository.findInboxBefore",
+                        () -> bean(MessageRepository.class).findInboxBefore(1L, NOW, 100L, PageRequest.of(0, 51)),
+                        "idx_messages_receiver_id_sent_at_id"),
+                query("MessageRepository.findSent",
+                        () -> bean(MessageRepository.class).findSent(1L, PageRequest.of(0, 51)),
+                        "idx_messages_sender_id_sent_at_id"),
+                query("MessageRepository.findSentBefore",
+                        () -> bean(MessageRepository.class).findSentBefore(1L, NOW, 100L, PageRequest.of(0, 51)),
+                        "idx_messages_sender_id_sent_at_id"),
+                query("MessageRepository.findConversation",
+                        () -> bean(MessageRepository.class).findConversation(1L, 2L, 51),
+                        "idx_messages_sender_id_receiver_id_sent_at_id"),
+                query("MessageRepository.findConversationBefore",
+                        () -> bean(MessageRepository.class).findConversationBefore(1L, 2L, NOW, 100L, 51),
+                        "idx_messages_sender_id_receiver_id_sent_at_id"),
+
+                query("ViewLogRepository.findBySnipId",
+                        () -> bean(ViewLogRepository.class).findBySnipId(1L), "idx_view_logs_snip_id"),
+                query("ViewLogRepository.findByViewerId",
+                        () -> bean(ViewLogRepository.class).findByViewerId(1L), "idx_view_logs_viewer_id"),
+                query("ExpirationLogRepository.findBySnipId",
+                        () -> bean(ExpirationLogRepository.class).findBySnipId(1L), "idx_expiration_logs_snip_id"),
+
+                query("GroupRepository.findByCreatorId",
+                        () -> bean(GroupRepository.class).findByCreatorId(1L), "idx_groups_creator_id"),
+                query("GroupMemberRepository.findByGroupId",
+                        () -> bean(GroupMemberRepository.class).findByGroupId(1L), "group_members_group_id_user_id_key"),
+                query("GroupMemberRepository.findByUserId",
+                        () -> bean(GroupMemberRepository.class).findByUserId(1L), "idx_group_members_user_id"),
+                query("GroupMemberRepository.findByGroupIdAndUserId",
+                        () -> bean(GroupMemberRepository.class).findByGroupIdAndUserId(1L, 2L),
+                        "group_members_group_id_user_id_key"),
+                query("GroupMemberRepository.countByGroupId",
+                        () -> bean(GroupMemberRepository.class).countByGroupId(1L), "group_members_group_id_user_id_key"),
+                query("GroupSnipRepository.findByGroupId",
+                        () -> bean(GroupSnipRepository.class).findByGroupId(1L),
+                        "idx_group_snips_group_id_shared_at_id", "group_snips_group_id_snip_id_key"),
+                query("GroupSnipRepository.findBySnipId",
+                        () -> bean(GroupSnipRepository.class).findBySnipId(1L), "idx_group_snips_snip_id"),
+                query("GroupSnipRepository.findByGroupIdAndSnipId",
+                        () -> bean(GroupSnipRepository.class).findByGroupIdAndSnipId(1L, 2L),
+                        "group_snips_group_id_snip_id_key"),
+                query("GroupSnipRepository.findByGroupIdWithSnips",
+                        () -> bean(GroupSnipRepository.class).findByGroupIdWithSnips(1L),
+                        "idx_group_snips_group_id_shared_at_id", "group_snips_group_id_snip_id_key"),
+                query("GroupSnipRepository.findLiveSummariesByGroupId",
+                        () -> bean(GroupSnipRepository.class).findLiveSummariesByGroupId(1L, NOW, PageRequest.of(0, 100)),
+                        "idx_group_snips_group_id_shared_at_id"),
+                query("GroupSnipRepository.findLiveSummariesByGroupIdBefore",
+                        () -> bean(GroupSnipRepository.class).findLiveSummariesByGroupIdBefore(1L, NOW, 100L, NOW,
+                                PageRequest.of(0, 100)),
+                        "idx_group_snips_group_id_shared_at_id")
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("repositoryQueries")
+    void queryIsPlannedWithAnIndex(String name, Call call, String[] expectedIndexes) throws Exception {
+        List<String> recorded = new ArrayList<>();
+        plans.set(recorded);
+        try {
+            call.run();
+        } finally {
+            plans.remove();
+        }
+
+        assertFalse(recorded.isEmpty(), () -> name + " ran no statement");
+        for (String plan : recorded) {
+            assertFalse(plan.contains(EXPLAIN_FAILED), () -> name + " could not be explained:\n" + plan);
+            assertFalse(plan.contains("Seq Scan"), () -> name + " falls back to a sequential scan:\n" + plan);
+        }
+        assertTrue(Arrays.stream(expectedIndexes).anyMatch(index -> recorded.stream().anyMatch(plan -> plan.contains(index))),
+                () -> name + " does not use any of " + Arrays.toString(expectedIndexes) + ":\n" + String.join("\n", recorded));
+    }
+
+    // Postgres runs this lookup itself when collecting a blob sets snips.blob_id to null;
+    // it is not application SQL, so it can only be written out here
+    @Test
+    void blobForeignKeyActionIsPlannedWithAnIndex() throws Exception {
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("SET enable_seqscan = off");
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = statement.executeQuery("EXPLAIN SELECT id FROM snips WHERE blob_id = 1")) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+            assertTrue(plan.toString().contains("idx_snips_blob_id"), plan::toString);
+        }
+    }
+
+    private static <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    private static void inTransaction(Runnable work) {
+        new TransactionTemplate(bean(PlatformTransactionManager.class)).executeWithoutResult(status -> work.run());
+    }
+
+    private static Arguments query(String name, Call call, String... expectedIndexes) {
+        return Arguments.of(name, call, expectedIndexes);
+    }
+
+    @FunctionalInterface
+    interface Call {
+        void run() throws Exception;
+    }
+
+    private static DataSource explaining(DataSource target) {
+        return proxy(DataSource.class, (method, args) -> {
+            Object result = invoke(target, method, args);
+            return result instanceof Connection connection ? explaining(connection) : result;
+        });
+    }
+
+    private static Connection explaining(Connection target) {
+        return proxy(Connection.class, (method, args) -> {
+            Object result = invoke(target, method, args);
+            if (method.getName().equals("prepareStatement") && result instanceof PreparedStatement statement) {
+                return explaining(target, (String) args[0], statement);
+            }
+            return result;
+        });
+    }
+
+    // Replays the parameters set on the statement onto an EXPLAIN of it right before it runs,
+    // or before its first batch is added
+    private static PreparedStatement explaining(Connection connection, String sql, PreparedStatement target) {
+        Map<Integer, Object[]> parameters = new TreeMap<>();
+        Map<Integer, Method> setters = new TreeMap<>();
+        boolean[] batched = {false};
+        return proxy(PreparedStatement.class, (method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameters.put(index, args);
+                setters.put(index, method);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+                setters.clear();
+            } else if ((args == null || args.length == 0) && (name.equals("executeQuery")
+                    || name.equals("executeUpdate") || name.equals("executeLargeUpdate") || name.equals("execute")
+                    || (name.equals("addBatch") && !batched[0]))) {
+                batched[0] |= name.equals("addBatch");
+                explain(connection, sql, setters, parameters);
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    private static void explain(Connection connection, String sql, Map<Integer, Method> setters,
+                                Map<Integer, Object[]> parameters) throws SQLException {
+        List<String> recording = plans.get();
+        if (recording == null || !EXPLAINABLE.matcher(sql).find()) {
+            return;
+        }
+        // A failed EXPLAIN must not abort the transaction the statement runs in
+        Savepoint savepoint = connection.getAutoCommit() ? null : connection.setSavepoint();
+        StringBuilder plan = new StringBuilder(sql).append('\n');
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (Map.Entry<Integer, Method> setter : setters.entrySet()) {
+                setter.getValue().invoke(explain, parameters.get(setter.getKey()));
+            }
+            try (ResultSet rs = explain.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+            if (savepoint != null) {
+                connection.releaseSavepoint(savepoint);
+            }
+        } catch (SQLException | ReflectiveOperationException e) {
+            if (savepoint != null) {
+                connection.rollback(savepoint);
+            }
+            plan.append(EXPLAIN_FAILED).append(e);
+        }
+        recording.add(plan.toString());
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(RepositoryQueryPlanTest.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
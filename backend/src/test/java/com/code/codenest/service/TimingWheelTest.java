@@ -0,0 +1,106 @@
+package com.code.codenest.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link TimingWheel}; no Spring context or database needed.
+ */
+class TimingWheelTest {
+
+    private static final long TICK = 100;
+
+    @Test
+    void firesOnTheFirstTickAtOrAfterTheDeadline() {
+        TimingWheel wheel = new TimingWheel(TICK, 0);
+        wheel.schedule(1, 250);
+
+        List<Long> fired = new ArrayList<>();
+        wheel.advance(200, fired::add);
+        assertTrue(fired.isEmpty());
+
+        wheel.advance(300, fired::add);
+        assertEquals(List.of(1L), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cascadesFarDeadlinesDownThroughTheLevels() {
+        TimingWheel wheel = new TimingWheel(1, 0);
+        long[] deadlines = {64, 65, 4095, 4096, 4097, 262_143, 262_144, 262_145, 16_777_217};
+        for (int i = 0; i < deadlines.length; i++) {
+            wheel.schedule(i, deadlines[i]);
+        }
+
+        Map<Long, Long> firedAt = new HashMap<>();
+        for (long now = 0; now <= 16_777_300; now += 7) {
+            long at = now;
+            wheel.advance(now, id -> firedAt.put(id, at));
+        }
+
+        for (int i = 0; i < deadlines.length; i++) {
+            long at = firedAt.get((long) i);
+            assertTrue(at >= deadlines[i] && at < deadlines[i] + 7, "id " + i + " fired at " + at);
+        }
+    }
+
+    @Test
+    void cancelAndRescheduleReplaceThePendingDeadline() {
+        TimingWheel wheel = new TimingWheel(TICK, 0);
+        wheel.schedule(1, 1_000);
+        wheel.schedule(2, 1_000);
+        assertTrue(wheel.cancel(1));
+        assertFalse(wheel.cancel(1));
+        wheel.schedule(2, 5_000);
+
+        List<Long> fired = new ArrayList<>();
+        wheel.advance(4_900, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advance(5_000, fired::add);
+        assertEquals(List.of(2L), fired);
+    }
+
+    @Test
+    void pastDeadlinesFireOnTheNextAdvance() {
+        TimingWheel wheel = new TimingWheel(TICK, 10_000);
+        wheel.advance(20_000, id -> fail("nothing scheduled yet"));
+        wheel.schedule(1, 5_000);
+
+        List<Long> fired = new ArrayList<>();
+        wheel.advance(20_100, fired::add);
+        assertEquals(List.of(1L), fired);
+    }
+
+    @Test
+    void neverFiresEarlyOrLateUnderRandomLoad() {
+        Random random = new Random(42);
+        TimingWheel wheel = new TimingWheel(TICK, 0);
+        Map<Long, Long> pending = new HashMap<>();
+        for (long id = 0; id < 50_000; id++) {
+            long deadline = (long) (Math.pow(random.nextDouble(), 4) * 1_000_000_000L);
+            wheel.schedule(id, deadline);
+            pending.put(id, deadline);
+        }
+
+        long now = 0;
+        while (now < 1_000_000_000L) {
+            now += random.nextInt(50_000);
+            long at = now;
+            wheel.advance(now, id -> {
+                Long deadline = pending.remove(id);
+                assertNotNull(deadline, "fired twice: " + id);
+                assertTrue(deadline <= at, "fired early: " + id);
+            });
+        }
+        long end = now;
+        assertTrue(pending.values().stream().allMatch(deadline -> deadline > end - TICK));
+        assertEquals(pending.size(), wheel.size());
+    }
+}
@@ -0,0 +1,46 @@
+// Writes .br and .gz copies next to the text assets of a build, so the backend can serve
+// them as-is (spring.web.resources.chain.compressed) instead of compressing per request.
+// Usage: node scripts/precompress.js [directory], defaulting to dist.
+import { readdir, readFile, writeFile, stat } from 'node:fs/promises'
+import { join, extname } from 'node:path'
+import { brotliCompressSync, gzipSync, constants } from 'node:zlib'
+
+const EXTENSIONS = new Set(['.html', '.js', '.mjs', '.css', '.json', '.svg', '.txt', '.map'])
+// Below this, the saving does not pay for the extra files
+const MIN_SIZE = 1024
+
+async function* files(dir) {
+  for (const entry of await readdir(dir, { withFileTypes: true })) {
+    const path = join(dir, entry.name)
+    if (entry.isDirectory()) {
+      yield* files(path)
+    } else {
+      yield path
+    }
+  }
+}
+
+const root = process.argv[2] ?? 'dist'
+let count = 0
+for await (const path of files(root)) {
+  if (!EXTENSIONS.has(extname(path)) || (await stat(path)).size < MIN_SIZE) {
+    continue
+  }
+  const content = await readFile(path)
+  const brotli = brotliCompressSync(content, {
+    params: {
+      [constants.BROTLI_PARAM_QUALITY]: constants.BROTLI_MAX_QUALITY,
+      [constants.BROTLI_PARAM_SIZE_HINT]: content.length,
+    },
+  })
+  const gzip = gzipSync(content, { level: constants.Z_BEST_COMPRESSION })
+  // Only keep a variant that is actually smaller
+  if (brotli.length < content.length) {
+    await writeFile(`${path}.br`, brotli)
+  }
+  if (gzip.length < content.length) {
+    await writeFile(`${path}.gz`, gzip)
+  }
+  count++
+}
+console.log(`Pre-compressed ${count} files in ${root}`)
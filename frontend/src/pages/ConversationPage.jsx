@@ -40,6 +40,15 @@ const formatMessageTime = (dateString) => {
     return new Date(dateString).toLocaleTimeString([], { hour: '2-digit', minute: '2-digit' });
 };
 
+// Merge a page into the loaded messages, keeping the order by time and dropping repeats
+const mergeMessages = (loaded, page) => {
+    const byId = new Map(loaded.map(message => [message.id, message]));
+    page.forEach(message => byId.set(message.id, message));
+    return [...byId.values()].sort(
+        (a, b) => new Date(a.sentAt) - new Date(b.sentAt) || a.id - b.id
+    );
+};
+
 const ConversationPage = () => {
     const { userId } = useParams();
     const { currentUser } = useAuth();
@@ -52,6 +61,8 @@ const ConversationPage = () => {
     const [messages, setMessages] = useState([]);
     const [newMessage, setNewMessage] = useState('');
     const [sending, setSending] = useState(false);
+    const [nextCursor, setNextCursor] = useState(null);
+    const [loadingOlder, setLoadingOlder] = useState(false);
 
     const messagesEndRef = useRef(null);
 
@@ -79,6 +90,7 @@ const ConversationPage = () => {
                 if (response.success) {
                     setOtherUser(response.otherUser);
                     setMessages(response.messages || []);
+                    setNextCursor(response.nextCursor || null);
                 } else {
                     throw new Error(response.message || 'Failed to load conversation');
                 }
@@ -93,10 +105,30 @@ const ConversationPage = () => {
         if (userId) { fetchConversation(); }
     }, [userId]);
 
-    // Scroll to bottom whenever messages change
+    // Scroll to bottom when a newer message arrives, but not when older ones are prepended
+    const latestMessageId = messages.length > 0 ? messages[messages.length - 1].id : null;
     useEffect(() => {
         messagesEndRef.current?.scrollIntoView({ behavior: 'smooth' });
-    }, [messages]);
+    }, [latestMessageId]);
+
+    const handleLoadOlder = async () => {
+        if (!nextCursor) return;
+        try {
+            setLoadingOlder(true);
+            const response = await messageService.getConversation(userId, nextCursor);
+            if (response.success) {
+                setMessages(prev => mergeMessages(prev, response.messages || []));
+                setNextCursor(response.nextCursor || null);
+            } else {
+                throw new Error(response.message || 'Failed to load older messages');
+            }
+        } catch (err) {
+            console.error('Error loading older messages:', err);
+            setError(err.message || 'An error occurred');
+        } finally {
+            setLoadingOlder(false);
+        }
+    };
 
     const handleSendMessage = async (e) => {
         e.preventDefault();
@@ -113,11 +145,10 @@ const ConversationPage = () => {
 
             if (result.success) {
                 setNewMessage('');
-                // Refetch the conversation
+                // Refetch the latest page, keeping any older pages already loaded
                 const response = await messageService.getConversation(userId);
                 if (response.success) {
-                    // Directly use the messages from the response
-                    setMessages(response.messages || []); // <-- Use response.messages directly
+                    setMessages(prev => mergeMessages(prev, response.messages || []));
                 }
             } else {
                 throw new Error(result.message || 'Failed to send message');
@@ -249,8 +280,21 @@ const ConversationPage = () => {
                             </Typography>
                         </Box>
                     ) : (
-                        // Message bubbles
-                        messages.map((message) => {
+                        <>
+                        {nextCursor && (
+                            <Box textAlign="center" mb={1}>
+                                <Button
+                                    size="small"
+                                    onClick={handleLoadOlder}
+                                    disabled={loadingOlder}
+                                    sx={{ textTransform: 'none', color: '#673CE3' }}
+                                >
+                                    {loadingOlder ? <CircularProgress size={18} sx={{ color: '#673CE3' }} /> : 'Load older messages'}
+                                </Button>
+                            </Box>
+                        )}
+                        {/* Message bubbles */}
+                        {messages.map((message) => {
                             const isSent = message.direction === 'sent';
                             const avatarInfo = isSent ? currentUserAvatar : otherUserAvatar;
 
@@ -345,7 +389,8 @@ const ConversationPage = () => {
                                     )}
                                 </Box>
                             );
-                        })
+                        })}
+                        </>
                     )}
                     {/* Invisible element to scroll to */}
                     <div ref={messagesEndRef} />
@@ -77,7 +77,7 @@ const DashboardPage = () => {
                     setSnippets(snippetsData.snippets || []);
                 }
 
-                // Fetch recent messages
+                // Fetch recent messages; the first inbox page is the newest, so no need to page further
                 const messagesData = await messageService.getInbox();
                 if (messagesData.success) {
                     // Only take the first 5 messages for the dashboard view
@@ -431,7 +431,7 @@ const DashboardPage = () => {
                                                                     color: theme.palette.mode === 'dark' ? 'rgba(255, 255, 255, 0.7)' : 'text.secondary',
                                                                 }}
                                                             >
-                                                                {snippet.content?.substring(0, 150) || ''}
+                                                                {snippet.preview?.substring(0, 150) || ''}
                                                             </Box>
 
                                                             <Box display="flex" alignItems="center" justifyContent="space-between">
@@ -92,10 +92,10 @@ const LatestSnippetsPage = () => {
                                 </div>
                                 <div className="card-body">
                   <pre style={{ backgroundColor: 'rgba(0, 0, 0, 0.25)', padding: '1rem', borderRadius: '0.5rem', overflow: 'auto', margin: '0 0 1rem', maxHeight: '150px' }}>
-                    <code>{snippet.code.length > 150 ? `${snippet.code.substring(0, 150)}...` : snippet.code}</code>
+                    <code>{snippet.preview}{snippet.truncated ? '...' : ''}</code>
                   </pre>
                                     <div style={{ display: 'flex', justifyContent: 'space-between', alignItems: 'center' }}>
-                                        <small style={{ color: '#9C95AC' }}>Created: {snippet.date}</small>
+                                        <small style={{ color: '#9C95AC' }}>Created: {snippet.createdAt}</small>
                                         <Link to={`/code/${snippet.uuid}`} className="btn-primary">
                                             View Full Snippet
                                         </Link>
@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useMemo } from 'react';
 import { Link, useNavigate } from 'react-router-dom';
 import { messageService } from '../services/api';
 import { useAuth } from '../contexts/AuthContext';
@@ -62,59 +62,68 @@ const formatDate = (dateString) => {
     return date.toLocaleDateString();
 };
 
+// Collapse messages into one entry per conversation partner, newest conversation first
+const groupConversations = (messages, activeTab) => {
+    const grouped = {};
+    messages.forEach(msg => {
+        const partnerId = activeTab === 'inbox' ? msg.senderId : msg.receiverId;
+        const partnerName = activeTab === 'inbox' ? msg.senderName : msg.receiverName;
+
+        if (!grouped[partnerId]) {
+            grouped[partnerId] = {
+                partnerId: partnerId,
+                partnerName: partnerName,
+                latestMessage: msg.content,
+                sentAt: msg.sentAt,
+                messageId: msg.id,
+                unread: false // Optional: Add unread status logic here
+            };
+        }
+        // Update if this message is newer
+        else if (new Date(msg.sentAt) > new Date(grouped[partnerId].sentAt)) {
+            grouped[partnerId].latestMessage = msg.content;
+            grouped[partnerId].sentAt = msg.sentAt;
+            grouped[partnerId].messageId = msg.id;
+        }
+    });
+
+    // Sort conversations by latest message date
+    return Object.values(grouped).sort(
+        (a, b) => new Date(b.sentAt) - new Date(a.sentAt)
+    );
+};
+
 const MessagesPage = () => {
     const [activeTab, setActiveTab] = useState('inbox');
-    const [messages, setMessages] = useState([]);
+    const [rawMessages, setRawMessages] = useState([]);
+    const [nextCursor, setNextCursor] = useState(null);
     const [loading, setLoading] = useState(true);
+    const [loadingMore, setLoadingMore] = useState(false);
     const [error, setError] = useState(null);
     const { currentUser } = useAuth();
     const navigate = useNavigate();
     const theme = useTheme();
 
+    // Pages come newest first, so older pages only add conversations further down the list
+    const messages = useMemo(() => groupConversations(rawMessages, activeTab), [rawMessages, activeTab]);
+
+    const fetchPage = (before) => activeTab === 'inbox'
+        ? messageService.getInbox(before)
+        : messageService.getSent(before);
+
     useEffect(() => {
         const fetchMessages = async () => {
             try {
                 setLoading(true);
                 setError(null);
-                let data;
+                setRawMessages([]);
+                setNextCursor(null);
 
-                if (activeTab === 'inbox') {
-                    data = await messageService.getInbox();
-                } else {
-                    data = await messageService.getSent();
-                }
+                const data = await fetchPage();
 
                 if (data.success) {
-                    // Group messages by conversation partner
-                    const grouped = {};
-                    (data.messages || []).forEach(msg => {
-                        const partnerId = activeTab === 'inbox' ? msg.senderId : msg.receiverId;
-                        const partnerName = activeTab === 'inbox' ? msg.senderName : msg.receiverName;
-
-                        if (!grouped[partnerId]) {
-                            grouped[partnerId] = {
-                                partnerId: partnerId,
-                                partnerName: partnerName,
-                                latestMessage: msg.content,
-                                sentAt: msg.sentAt,
-                                messageId: msg.id,
-                                unread: false // Optional: Add unread status logic here
-                            };
-                        }
-                        // Update if this message is newer
-                        else if (new Date(msg.sentAt) > new Date(grouped[partnerId].sentAt)) {
-                            grouped[partnerId].latestMessage = msg.content;
-                            grouped[partnerId].sentAt = msg.sentAt;
-                            grouped[partnerId].messageId = msg.id;
-                        }
-                    });
-
-                    // Sort conversations by latest message date
-                    const sortedConversations = Object.values(grouped).sort(
-                        (a, b) => new Date(b.sentAt) - new Date(a.sentAt)
-                    );
-
-                    setMessages(sortedConversations);
+                    setRawMessages(data.messages || []);
+                    setNextCursor(data.nextCursor || null);
                 } else {
                     throw new Error(data.message || 'Failed to load messages');
                 }
@@ -128,6 +137,24 @@ const MessagesPage = () => {
         fetchMessages();
     }, [activeTab]);
 
+    const handleLoadOlder = async () => {
+        if (!nextCursor) return;
+        try {
+            setLoadingMore(true);
+            const data = await fetchPage(nextCursor);
+            if (data.success) {
+                setRawMessages(prev => [...prev, ...(data.messages || [])]);
+                setNextCursor(data.nextCursor || null);
+            } else {
+                throw new Error(data.message || 'Failed to load older messages');
+            }
+        } catch (err) {
+            setError(err.message || 'An error occurred');
+        } finally {
+            setLoadingMore(false);
+        }
+    };
+
     const handleTabChange = (event, newValue) => {
         setActiveTab(newValue);
     };
@@ -363,6 +390,18 @@ const MessagesPage = () => {
                             })}
                         </List>
                     )}
+                    {!loading && nextCursor && (
+                        <Box textAlign="center" py={1.5}>
+                            <Button
+                                size="small"
+                                onClick={handleLoadOlder}
+                                disabled={loadingMore}
+                                sx={{ textTransform: 'none', color: '#673CE3' }}
+                            >
+                                {loadingMore ? <CircularProgress size={18} sx={{ color: '#673CE3' }} /> : 'Load older messages'}
+                            </Button>
+                        </Box>
+                    )}
                 </Box>
 
                 {/* Help text - only show if there are messages */}
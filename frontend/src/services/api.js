@@ -39,8 +39,10 @@ export const snippetService = {
         });
         return handleResponse(response);
     },
-    getLatest: async () => {
-        const response = await fetch(`${API_URL}/code/latest`);
+    getLatest: async (before = null, limit = 10) => {
+        const params = new URLSearchParams({ limit: String(limit) });
+        if (before) params.set('before', before);
+        const response = await fetch(`${API_URL}/code/latest?${params}`);
         return handleResponse(response);
     },
     getById: async (uuid, skipIncrement = false) => {
@@ -169,16 +171,23 @@ export const groupService = {
 
 // Message operations
 export const messageService = {
-    getInbox: async () => {
-        const response = await fetch(`${API_URL}/messages/inbox`, { credentials: 'include' });
+    getInbox: async (before = null) => {
+        const params = new URLSearchParams();
+        if (before) params.set('before', before);
+        const response = await fetch(`${API_URL}/messages/inbox?${params}`, { credentials: 'include' });
         return handleResponse(response);
     },
-    getSent: async () => {
-        const response = await fetch(`${API_URL}/messages/sent`, { credentials: 'include' });
+    getSent: async (before = null) => {
+        const params = new URLSearchParams();
+        if (before) params.set('before', before);
+        const response = await fetch(`${API_URL}/messages/sent?${params}`, { credentials: 'include' });
         return handleResponse(response);
     },
-    getConversation: async (userId) => {
-        const response = await fetch(`${API_URL}/messages/conversation/${userId}`, { credentials: 'include' });
+    // Newest page first; pass the returned nextCursor as before to load older messages
+    getConversation: async (userId, before = null) => {
+        const params = new URLSearchParams();
+        if (before) params.set('before', before);
+        const response = await fetch(`${API_URL}/messages/conversation/${userId}?${params}`, { credentials: 'include' });
         return handleResponse(response);
     },
     sendMessage: async (messageData) => {